@@ -0,0 +1,183 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Socket channel without a socket. Writes are swallowed whole and reads are
+ * served from a buffer the benchmark fills, so sessions can be driven without
+ * touching the network.
+ *
+ * @author Faris
+ */
+public class BenchmarkChannel extends SocketChannel {
+
+	/**
+	 * The data served to reads, empty unless a benchmark fills it.
+	 */
+	private ByteBuffer inbound = ByteBuffer.allocate(0);
+
+	/**
+	 * The number of bytes swallowed by writes.
+	 */
+	private long written;
+
+	public BenchmarkChannel() {
+		super(SelectorProvider.provider());
+	}
+
+	/**
+	 * Sets the data served to reads.
+	 *
+	 * @param inbound
+	 *            the data, flipped for reading
+	 */
+	public void inbound(ByteBuffer inbound) {
+		this.inbound = inbound;
+	}
+
+	/**
+	 * @return true if reads have data left to serve
+	 */
+	public boolean hasInbound() {
+		return inbound.hasRemaining();
+	}
+
+	/**
+	 * @return the number of bytes swallowed by writes
+	 */
+	public long written() {
+		return written;
+	}
+
+	@Override
+	public int read(ByteBuffer destination) {
+		int count = Math.min(destination.remaining(), inbound.remaining());
+		for (int i = 0; i < count; i++) {
+			destination.put(inbound.get());
+		}
+		return count;
+	}
+
+	@Override
+	public long read(ByteBuffer[] destinations, int offset, int length) {
+		long count = 0;
+		for (int i = offset; i < offset + length; i++) {
+			count += read(destinations[i]);
+		}
+		return count;
+	}
+
+	@Override
+	public int write(ByteBuffer source) {
+		int count = source.remaining();
+		source.position(source.limit());
+		written += count;
+		return count;
+	}
+
+	@Override
+	public long write(ByteBuffer[] sources, int offset, int length) {
+		long count = 0;
+		for (int i = offset; i < offset + length; i++) {
+			count += write(sources[i]);
+		}
+		return count;
+	}
+
+	@Override
+	public SocketChannel bind(SocketAddress local) {
+		return this;
+	}
+
+	@Override
+	public <T> SocketChannel setOption(SocketOption<T> name, T value) {
+		return this;
+	}
+
+	@Override
+	public <T> T getOption(SocketOption<T> name) {
+		return null;
+	}
+
+	@Override
+	public Set<SocketOption<?>> supportedOptions() {
+		return Collections.emptySet();
+	}
+
+	@Override
+	public SocketChannel shutdownInput() {
+		return this;
+	}
+
+	@Override
+	public SocketChannel shutdownOutput() {
+		return this;
+	}
+
+	@Override
+	public Socket socket() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean isConnected() {
+		return true;
+	}
+
+	@Override
+	public boolean isConnectionPending() {
+		return false;
+	}
+
+	@Override
+	public boolean connect(SocketAddress remote) {
+		return true;
+	}
+
+	@Override
+	public boolean finishConnect() {
+		return true;
+	}
+
+	@Override
+	public SocketAddress getRemoteAddress() {
+		return null;
+	}
+
+	@Override
+	public SocketAddress getLocalAddress() {
+		return null;
+	}
+
+	@Override
+	protected void implCloseSelectableChannel() throws IOException {
+	}
+
+	@Override
+	protected void implConfigureBlocking(boolean block) throws IOException {
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.solace.game.entity.mobile.player.Player;
+import org.solace.game.item.Item;
+import org.solace.game.item.container.Container;
+
+/**
+ * Measures filling and emptying an inventory, including the refresh sent
+ * to the client.
+ *
+ * @author Faris
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerBenchmark {
+
+	@Benchmark
+	public void addAndDelete(SyntheticWorld world) {
+		Player player = world.population().get(0);
+		Container inventory = player.getInventory();
+		for (int i = 0; i < inventory.capacity(); i++) {
+			inventory.add(new Item(1 + i * 2, 1));
+		}
+		for (int i = 0; i < inventory.capacity(); i++) {
+			inventory.delete(new Item(1 + i * 2, 1));
+		}
+		world.flush();
+	}
+
+}
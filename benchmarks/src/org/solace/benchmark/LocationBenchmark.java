@@ -0,0 +1,53 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.solace.game.entity.mobile.player.Player;
+
+/**
+ * Measures the view distance checks made when rebuilding local lists, as
+ * one player checked against the whole world.
+ *
+ * @author Faris
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationBenchmark {
+
+	@Benchmark
+	public int withinDistance(SyntheticWorld world) {
+		Player master = world.population().get(0);
+		int visible = 0;
+		for (Player player : world.population()) {
+			if (master.getLocation().withinDistance(player.getLocation())) {
+				visible++;
+			}
+		}
+		return visible;
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import net.burtlebutle.bob.rand.isaac.ISAAC;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.solace.network.RSChannelContext;
+import org.solace.network.packet.PacketBuilder;
+import org.solace.network.packet.PacketType;
+import org.solace.network.packet.RSPacketDecoder;
+
+/**
+ * Measures bit level packet writing and inbound packet decoding.
+ *
+ * @author Faris
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketBenchmark {
+
+	/**
+	 * Opcodes without a handler, so decoding is measured on its own. They
+	 * cover a one byte, a four byte and a variable sized packet.
+	 */
+	private static final int[] OPCODES = { 3, 86, 45 };
+
+	/**
+	 * The number of packets decoded per invocation, as many as the rate
+	 * limiter lets through in one cycle so none are dropped.
+	 */
+	private static final int PACKETS = OPCODES.length * PacketType.DEFAULT_LIMIT;
+
+	/**
+	 * A client session sending a burst of packets each invocation.
+	 */
+	@State(Scope.Thread)
+	public static class Session {
+
+		private BenchmarkChannel channel;
+		private RSPacketDecoder decoder;
+		private RSChannelContext channelContext;
+		private ISAAC cipher;
+		private ByteBuffer burst = ByteBuffer.allocate(PACKETS * 16);
+
+		@Setup(Level.Trial)
+		public void connect() {
+			int[] seed = { 17, 31, 47, 59 };
+			channel = new BenchmarkChannel();
+			decoder = new RSPacketDecoder();
+			channelContext = new RSChannelContext(channel, decoder);
+			channelContext.decryption(new ISAAC(seed.clone()));
+			cipher = new ISAAC(seed.clone());
+		}
+
+		/**
+		 * Encrypts the next burst of packets, keeping the cipher in step
+		 * with the decoder. The rate limiter is refilled first, as a new
+		 * cycle would.
+		 */
+		@Setup(Level.Invocation)
+		public void send() {
+			decoder.limiter().reset();
+			burst.clear();
+			for (int i = 0; i < PACKETS; i++) {
+				int opcode = OPCODES[i % OPCODES.length];
+				burst.put((byte) (opcode + cipher.getNextKey()));
+				int length = RSPacketDecoder.PACKET_SIZES[opcode];
+				if (length == -1) {
+					length = 6;
+					burst.put((byte) length);
+				}
+				for (int j = 0; j < length; j++) {
+					burst.put((byte) j);
+				}
+			}
+			burst.flip();
+			channel.inbound(burst);
+		}
+	}
+
+	@Benchmark
+	public void decode(Session session) throws IOException {
+		while (session.channel.hasInbound()) {
+			session.channelContext.decoder().decode(session.channelContext);
+		}
+		session.channelContext.handleInbound();
+	}
+
+	@Benchmark
+	public void putBits(Blackhole blackhole) {
+		PacketBuilder out = PacketBuilder.allocate(4096);
+		out.bitAccess();
+		for (int i = 0; i < 255; i++) {
+			out.putBits(11, i);
+			out.putBits(1, 1);
+			out.putBits(5, i & 31);
+			out.putBits(5, i >> 3);
+			out.putBits(1, 0);
+		}
+		out.byteAccess();
+		blackhole.consume(out.buffer().position());
+		out.release();
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import net.burtlebutle.bob.rand.isaac.ISAAC;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.solace.game.Game;
+import org.solace.game.entity.UpdateFlags.UpdateFlag;
+import org.solace.game.entity.mobile.Mobile.MovementStatus;
+import org.solace.game.entity.mobile.npc.NPC;
+import org.solace.game.entity.mobile.npc.NPCAdvocate;
+import org.solace.game.entity.mobile.npc.NPCDefinition;
+import org.solace.game.entity.mobile.player.Player;
+import org.solace.game.entity.mobile.update.PreUpdateExecutor;
+import org.solace.game.entity.mobile.update.impl.NPCUpdateTask;
+import org.solace.game.item.ItemDefinition;
+import org.solace.game.map.Location;
+import org.solace.network.RSChannelContext;
+
+/**
+ * A world of bot players, and half as many NPCs, packed into a small area
+ * around Varrock so every player sees a full local list. Each player is
+ * connected to a {@link BenchmarkChannel}. Benchmarks must run from the
+ * project root so the definitions under {@code ./data} can be found.
+ *
+ * @author Faris
+ */
+@State(Scope.Benchmark)
+public class SyntheticWorld {
+
+	/**
+	 * Side of the square the world is spread over.
+	 */
+	private static final int AREA = 48;
+
+	/**
+	 * The number of players in the world.
+	 */
+	@Param({ "100", "500", "2000" })
+	public int players;
+
+	/**
+	 * The players of the world.
+	 */
+	private final List<Player> population = new ArrayList<Player>();
+
+	/**
+	 * The NPCs of the world.
+	 */
+	private final List<NPC> npcs = new ArrayList<NPC>();
+
+	/**
+	 * The number of cycles run so far.
+	 */
+	private int cycle;
+
+	@Setup(Level.Trial)
+	public void build() throws IOException {
+		ItemDefinition.loadDefinitions();
+		NPCAdvocate.loadNPCDefs();
+		for (int i = 0; i < players; i++) {
+			RSChannelContext channelContext = new RSChannelContext(
+					new BenchmarkChannel(), null);
+			channelContext.encryption(new ISAAC(new int[] { i, i, i, i }));
+			Player player = new Player("bot" + i, "benchmark", channelContext);
+			channelContext.player(player);
+			player.setLocation(location(i));
+			Game.getPlayerRepository().add(player);
+			Game.getPlayerGrid().add(player);
+			population.add(player);
+		}
+		int npcId = firstNpcId();
+		for (int i = 0; i < players / 2; i++) {
+			NPC npc = new NPC(NPCDefinition.getDefinitions()[npcId], npcId);
+			npc.setLocation(location(i * 7 + 3));
+			npc.setMoveStatus(MovementStatus.STATIONARY);
+			Game.getNpcRepository().add(npc);
+			Game.getNpcGrid().add(npc);
+			npcs.add(npc);
+		}
+		/*
+		 * The first cycle sends map regions and fills every local list, which
+		 * is not what a steady state cycle looks like.
+		 */
+		updatePlayers();
+		updateNpcs();
+	}
+
+	@TearDown(Level.Trial)
+	public void destroy() {
+		for (Player player : population) {
+			Game.getPlayerRepository().remove(player);
+			Game.getPlayerGrid().remove(player);
+		}
+		for (NPC npc : npcs) {
+			Game.getNpcRepository().remove(npc);
+			Game.getNpcGrid().remove(npc);
+		}
+		population.clear();
+		npcs.clear();
+	}
+
+	/**
+	 * Runs the pre update and player update of a cycle for every player. A
+	 * tenth of the players flag an appearance change each cycle.
+	 */
+	public void updatePlayers() {
+		cycle++;
+		for (Player player : population) {
+			if (player.getIndex() % 10 == cycle % 10) {
+				player.getUpdateFlags().flag(UpdateFlag.APPEARANCE);
+			}
+		}
+		for (Player player : population) {
+			new PreUpdateExecutor(player).synchronize();
+		}
+		for (Player player : population) {
+			player.getUpdater().synchronize();
+		}
+		for (Player player : population) {
+			player.getUpdater().resetUpdateVars();
+		}
+		flush();
+	}
+
+	/**
+	 * Runs the NPC update of a cycle for every player. A tenth of the npcs
+	 * turn to face someone each cycle, their blocks are encoded once up
+	 * front as the game does.
+	 */
+	public void updateNpcs() {
+		for (NPC npc : npcs) {
+			if (npc.getIndex() % 10 == cycle % 10) {
+				npc.getUpdateFlags().flag(UpdateFlag.FACE_ENTITY);
+				npc.setCachedUpdateBlock(NPCUpdateTask.encodeUpdateBlock(npc));
+			}
+		}
+		for (Player player : population) {
+			player.getNpcUpdating().updateMobile();
+		}
+		for (NPC npc : npcs) {
+			npc.getUpdateFlags().reset();
+			npc.setCachedUpdateBlock(null);
+		}
+		flush();
+	}
+
+	/**
+	 * Writes every queued packet to the channels, returning the buffers to
+	 * the pool.
+	 */
+	public void flush() {
+		for (Player player : population) {
+			try {
+				player.channelContext().flush();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * @return the players of the world
+	 */
+	public List<Player> population() {
+		return population;
+	}
+
+	/**
+	 * Gets the spot the n-th mobile stands on.
+	 */
+	private static Location location(int n) {
+		return new Location(3200 + n % AREA, 3200 + (n / AREA) % AREA, 0);
+	}
+
+	/**
+	 * Gets the first NPC with a definition.
+	 */
+	private static int firstNpcId() {
+		NPCDefinition[] definitions = NPCDefinition.getDefinitions();
+		for (int i = 0; i < definitions.length; i++) {
+			if (definitions[i] != null) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("No NPC definitions loaded");
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark.load;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Drives a share of the bots from one thread: connects them, reads what the
+ * server sends and lets each act when its interval is up.
+ *
+ * @author Faris
+ */
+public class BotReactor extends Thread {
+
+	/**
+	 * The longest the reactor waits for data before checking on its bots, in
+	 * milliseconds. Bounds how late an action can be sent.
+	 */
+	private static final long SELECT_TIMEOUT = 5;
+
+	private final Selector selector;
+
+	/**
+	 * Bots waiting to be connected by this reactor.
+	 */
+	private final Queue<BotSession> pending = new ConcurrentLinkedQueue<BotSession>();
+
+	/**
+	 * The bots driven by this reactor.
+	 */
+	private final List<BotSession> sessions = new ArrayList<BotSession>();
+
+	private volatile boolean running = true;
+
+	public BotReactor(String name) throws IOException {
+		super(name);
+		selector = Selector.open();
+	}
+
+	/**
+	 * Hands a bot to this reactor, which connects it on its own thread.
+	 *
+	 * @param session
+	 *            the bot
+	 */
+	public void submit(BotSession session) {
+		pending.add(session);
+		selector.wakeup();
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				selector.select(SELECT_TIMEOUT);
+			} catch (IOException e) {
+				e.printStackTrace();
+				break;
+			}
+			BotSession session;
+			while ((session = pending.poll()) != null) {
+				sessions.add(session);
+				session.connect(selector);
+			}
+			long now = System.nanoTime();
+			for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext();) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				if (!key.isValid()) {
+					continue;
+				}
+				session = (BotSession) key.attachment();
+				if (key.isConnectable()) {
+					session.finishConnect();
+				} else if (key.isReadable()) {
+					session.read(now);
+				}
+			}
+			for (Iterator<BotSession> iterator = sessions.iterator(); iterator.hasNext();) {
+				session = iterator.next();
+				session.tick(now);
+				session.flush();
+				if (session.isClosed()) {
+					iterator.remove();
+				}
+			}
+		}
+		for (BotSession session : sessions) {
+			session.logout();
+		}
+		try {
+			selector.close();
+		} catch (IOException e) {
+		}
+	}
+
+	/**
+	 * Logs every bot out and waits for the reactor to stop.
+	 */
+	public void terminate() throws InterruptedException {
+		running = false;
+		selector.wakeup();
+		join();
+	}
+
+}
@@ -0,0 +1,688 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark.load;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.burtlebutle.bob.rand.isaac.ISAAC;
+import org.solace.util.ProtocolUtils;
+
+/**
+ * A simulated 317 client. It performs the login handshake the way
+ * {@code PlayerLoginDecipher} expects it, then frames the server packets to
+ * follow its own position and the NPCs around it, and acts on a fixed
+ * interval with traffic picked from the configured mix.
+ *
+ * @author Faris
+ */
+public class BotSession {
+
+	/**
+	 * Marks a server opcode this client does not know the size of.
+	 */
+	private static final int UNKNOWN = -3;
+
+	/**
+	 * Sizes of the packets the server sends, -1 and -2 for byte and short
+	 * sized packets.
+	 */
+	private static final int[] PACKET_SIZES = new int[256];
+
+	static {
+		Arrays.fill(PACKET_SIZES, UNKNOWN);
+		int[][] sizes = { { 4, 6 }, { 36, 3 }, { 44, 5 }, { 50, 9 },
+				{ 53, -2 }, { 65, -2 }, { 70, 6 }, { 71, 3 }, { 73, 4 },
+				{ 74, 2 }, { 75, 4 }, { 81, -2 }, { 85, 2 }, { 97, 2 },
+				{ 101, 2 }, { 104, -1 }, { 109, 0 }, { 117, 15 }, { 126, -2 },
+				{ 134, 6 }, { 151, 4 }, { 156, 3 }, { 160, 4 }, { 164, 2 },
+				{ 171, 3 }, { 174, 5 }, { 185, 2 }, { 196, -1 }, { 200, 4 },
+				{ 208, 2 }, { 219, 0 }, { 221, 1 }, { 246, 6 }, { 248, 4 },
+				{ 249, 3 }, { 253, -1 }, { 254, 6 } };
+		for (int[] size : sizes) {
+			PACKET_SIZES[size[0]] = size[1];
+		}
+	}
+
+	/**
+	 * Time a login may take before the bot gives up on it.
+	 */
+	private static final long LOGIN_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+	/**
+	 * The item spawned, dropped and picked up by item traffic.
+	 */
+	private static final int ITEM = 1351;
+
+	/**
+	 * The inventory interface, as expected by the drop packet.
+	 */
+	private static final int INVENTORY_INTERFACE = 3214;
+
+	/**
+	 * Public chat lines, packed the way the client packs chat text.
+	 */
+	private static final byte[][] CHAT = { pack("hello there"),
+			pack("i need a load test"), pack("ten in a line"),
+			pack("the sun is out") };
+
+	/**
+	 * The login states of a bot.
+	 */
+	private enum State {
+		CONNECTING, HANDSHAKE, LOGIN, IN_GAME, CLOSED
+	}
+
+	private final InetSocketAddress address;
+	private final String username, password;
+	private final LoadStatistics statistics;
+	private final int[] weights;
+	private final long interval;
+	private final Random random;
+
+	private SocketChannel channel;
+	private SelectionKey key;
+	private State state = State.CONNECTING;
+
+	/**
+	 * Data received but not yet framed, and data not yet written.
+	 */
+	private final ByteBuffer inbound = ByteBuffer.allocate(32768),
+			outbound = ByteBuffer.allocate(4096);
+
+	private ISAAC encryption, decryption;
+
+	/**
+	 * The packet being framed, -1 while waiting for the next one.
+	 */
+	private int opcode = -1, length = -1;
+
+	/**
+	 * Set once a server packet could not be framed, from then on data is only
+	 * counted.
+	 */
+	private boolean desynced;
+
+	/**
+	 * When the connection was started, the last player update arrived, the
+	 * oldest unanswered action was sent and the next action is due.
+	 */
+	private long connectStart, lastUpdate, actionSent, nextAction;
+
+	/**
+	 * The base of the loaded map region and the position of the bot, known
+	 * once the server has placed it.
+	 */
+	private int baseX, baseY, x, y;
+	private boolean positioned;
+
+	/**
+	 * Indices of the NPCs in the local list, in the order the server keeps
+	 * them.
+	 */
+	private final int[] localNpcs = new int[255];
+	private int localNpcCount;
+
+	/**
+	 * The login response received, if any.
+	 */
+	private int response = LoadStatistics.NO_RESPONSE;
+
+	/**
+	 * The next step of item traffic.
+	 */
+	private int itemStage;
+
+	/**
+	 * Reading position within the bit section of the packet being handled.
+	 */
+	private int bitStart, bitPosition;
+
+	public BotSession(InetSocketAddress address, String username,
+			String password, LoadStatistics statistics, int[] weights,
+			long interval, long seed) {
+		this.address = address;
+		this.username = username;
+		this.password = password;
+		this.statistics = statistics;
+		this.weights = weights;
+		this.interval = interval;
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Starts connecting to the server.
+	 *
+	 * @param selector
+	 *            the selector of the reactor driving this bot
+	 */
+	public void connect(Selector selector) {
+		connectStart = System.nanoTime();
+		try {
+			channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+			if (channel.connect(address)) {
+				connected();
+			}
+		} catch (IOException e) {
+			close();
+		}
+	}
+
+	/**
+	 * Finishes a pending connection.
+	 */
+	public void finishConnect() {
+		try {
+			if (channel.finishConnect()) {
+				connected();
+			}
+		} catch (IOException e) {
+			close();
+		}
+	}
+
+	/**
+	 * Sends the login type and name hash once connected.
+	 */
+	private void connected() {
+		key.interestOps(SelectionKey.OP_READ);
+		state = State.HANDSHAKE;
+		outbound.put((byte) 14);
+		outbound.put((byte) (ProtocolUtils.nameToLong(username) >> 16 & 31));
+		flush();
+	}
+
+	/**
+	 * Reads and handles whatever the server sent.
+	 *
+	 * @param now
+	 *            the current {@link System#nanoTime()}
+	 */
+	public void read(long now) {
+		try {
+			int read = channel.read(inbound);
+			if (read == -1) {
+				throw new EOFException();
+			}
+			statistics.bytesIn.add(read);
+			inbound.flip();
+			switch (state) {
+			case HANDSHAKE:
+				readHandshake();
+				break;
+			case LOGIN:
+				readLoginResponse(now);
+				break;
+			case IN_GAME:
+				readPackets(now);
+				break;
+			default:
+				inbound.position(inbound.limit());
+				break;
+			}
+			inbound.compact();
+		} catch (IOException e) {
+			close();
+		}
+	}
+
+	/**
+	 * Reads the server seed and sends the login block.
+	 */
+	private void readHandshake() {
+		if (inbound.remaining() < 17) {
+			return;
+		}
+		inbound.position(inbound.position() + 8);
+		response = inbound.get() & 0xFF;
+		if (response != 0) {
+			close();
+			return;
+		}
+		long serverSeed = inbound.getLong();
+		long clientSeed = random.nextLong();
+
+		ByteBuffer block = ByteBuffer.allocate(128);
+		block.put((byte) 10);
+		block.putLong(clientSeed);
+		block.putLong(serverSeed);
+		block.putInt(random.nextInt());
+		putString(block, username);
+		putString(block, password);
+		block.flip();
+
+		int payloadLength = 41 + block.remaining();
+		outbound.put((byte) 16);
+		outbound.put((byte) payloadLength);
+		outbound.put((byte) 255);
+		outbound.putShort((short) 317);
+		outbound.put((byte) 0);
+		for (int i = 0; i < 9; i++) {
+			outbound.putInt(0);
+		}
+		outbound.put((byte) block.remaining());
+		outbound.put(block);
+
+		int[] seed = { (int) (clientSeed >> 32), (int) clientSeed,
+				(int) (serverSeed >> 32), (int) serverSeed };
+		encryption = new ISAAC(seed.clone());
+		for (int i = 0; i < seed.length; i++) {
+			seed[i] += 50;
+		}
+		decryption = new ISAAC(seed);
+		state = State.LOGIN;
+		flush();
+	}
+
+	/**
+	 * Reads the login response, entering the game on success.
+	 */
+	private void readLoginResponse(long now) {
+		if (!inbound.hasRemaining()) {
+			return;
+		}
+		response = inbound.get(inbound.position()) & 0xFF;
+		if (response != 2) {
+			close();
+			return;
+		}
+		if (inbound.remaining() < 3) {
+			return;
+		}
+		inbound.position(inbound.position() + 3);
+		state = State.IN_GAME;
+		statistics.loginLatency.record(now - connectStart);
+		statistics.loginsAccepted.increment();
+		statistics.online.incrementAndGet();
+		nextAction = now + (long) (random.nextDouble() * interval);
+		readPackets(now);
+	}
+
+	/**
+	 * Frames and handles every complete packet received.
+	 */
+	private void readPackets(long now) {
+		while (!desynced) {
+			if (opcode == -1) {
+				if (!inbound.hasRemaining()) {
+					return;
+				}
+				opcode = inbound.get() - decryption.getNextKey() & 0xFF;
+				length = PACKET_SIZES[opcode];
+				if (length == UNKNOWN) {
+					desync();
+					break;
+				}
+			}
+			if (length == -1) {
+				if (!inbound.hasRemaining()) {
+					return;
+				}
+				length = inbound.get() & 0xFF;
+			} else if (length == -2) {
+				if (inbound.remaining() < 2) {
+					return;
+				}
+				length = inbound.getShort() & 0xFFFF;
+			}
+			if (inbound.remaining() < length) {
+				if (length > inbound.capacity()) {
+					desync();
+					break;
+				}
+				return;
+			}
+			int end = inbound.position() + length;
+			handle(now);
+			inbound.position(end);
+			statistics.packetsIn.increment();
+			opcode = length = -1;
+		}
+		inbound.position(inbound.limit());
+	}
+
+	/**
+	 * Gives up on framing the inbound stream.
+	 */
+	private void desync() {
+		desynced = true;
+		statistics.desyncs.increment();
+	}
+
+	/**
+	 * Handles the packets the bot follows its state with.
+	 */
+	private void handle(long now) {
+		switch (opcode) {
+		case 73:
+			int regionX = (inbound.get() & 0xFF) << 8 | inbound.get() - 128 & 0xFF;
+			int regionY = inbound.getShort() & 0xFFFF;
+			baseX = (regionX - 6) * 8;
+			baseY = (regionY - 6) * 8;
+			break;
+		case 81:
+			readPlayerUpdate(now);
+			break;
+		case 65:
+			readNpcUpdate();
+			break;
+		}
+	}
+
+	/**
+	 * Follows the movement of this bot and times the update.
+	 */
+	private void readPlayerUpdate(long now) {
+		if (lastUpdate != 0) {
+			statistics.tickInterval.record(now - lastUpdate);
+		}
+		lastUpdate = now;
+		if (actionSent != 0) {
+			statistics.actionLatency.record(now - actionSent);
+			actionSent = 0;
+		}
+		bitStart = inbound.position();
+		bitPosition = 0;
+		if (bits(1) == 0) {
+			return;
+		}
+		switch (bits(2)) {
+		case 1:
+			step(bits(3));
+			break;
+		case 2:
+			step(bits(3));
+			step(bits(3));
+			break;
+		case 3:
+			bits(4);
+			int localY = bits(7);
+			int localX = bits(7);
+			x = baseX + localX;
+			y = baseY + localY;
+			positioned = true;
+			break;
+		}
+	}
+
+	/**
+	 * Moves the bot one tile in a direction.
+	 */
+	private void step(int direction) {
+		x += ProtocolUtils.DIRECTION_DELTA_X[direction];
+		y += ProtocolUtils.DIRECTION_DELTA_Y[direction];
+	}
+
+	/**
+	 * Follows the local NPC list, so combat has something to target.
+	 */
+	private void readNpcUpdate() {
+		bitStart = inbound.position();
+		bitPosition = 0;
+		int count = bits(8);
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			int index = i < localNpcCount ? localNpcs[i] : -1;
+			if (bits(1) == 1) {
+				int type = bits(2);
+				if (type == 3) {
+					continue;
+				}
+				bits(type == 1 ? 4 : type == 2 ? 7 : 0);
+			}
+			localNpcs[kept++] = index;
+		}
+		localNpcCount = kept;
+		while (bitPosition + 21 < length * 8) {
+			int index = bits(14);
+			if (index == 16383) {
+				break;
+			}
+			bits(24);
+			if (localNpcCount < localNpcs.length) {
+				localNpcs[localNpcCount++] = index;
+			}
+		}
+	}
+
+	/**
+	 * Reads bits from the packet being handled.
+	 */
+	private int bits(int amount) {
+		int value = 0;
+		for (int i = 0; i < amount; i++, bitPosition++) {
+			int octet = inbound.get(bitStart + (bitPosition >> 3));
+			value = value << 1 | octet >> 7 - (bitPosition & 7) & 1;
+		}
+		return value;
+	}
+
+	/**
+	 * Sends the next action when it is due, and gives up on logins that take
+	 * too long.
+	 *
+	 * @param now
+	 *            the current {@link System#nanoTime()}
+	 */
+	public void tick(long now) {
+		if (state == State.IN_GAME) {
+			/*
+			 * Like the client, do nothing until the map is loaded.
+			 */
+			if (positioned && now >= nextAction) {
+				nextAction += interval;
+				if (nextAction < now) {
+					nextAction = now + interval;
+				}
+				act(now);
+			}
+		} else if (state != State.CLOSED && now - connectStart > LOGIN_TIMEOUT) {
+			close();
+		}
+	}
+
+	/**
+	 * Sends one action picked from the traffic mix.
+	 */
+	private void act(long now) {
+		if (outbound.remaining() < 64) {
+			return;
+		}
+		Traffic traffic = Traffic.pick(weights, random);
+		if (traffic == null) {
+			return;
+		}
+		int queued = outbound.position();
+		/*
+		 * Combat with nothing around falls back to walking.
+		 */
+		if (traffic == Traffic.COMBAT && localNpcCount > 0) {
+			int index = localNpcs[random.nextInt(localNpcCount)];
+			if (index > 0) {
+				opcode(72);
+				putShortA(index);
+			}
+		} else if (traffic == Traffic.CHAT) {
+			byte[] text = CHAT[random.nextInt(CHAT.length)];
+			opcode(4);
+			outbound.put((byte) (2 + text.length));
+			outbound.put((byte) 128);
+			outbound.put((byte) (128 - random.nextInt(12)));
+			for (byte value : text) {
+				outbound.put((byte) (value - 128));
+			}
+		} else if (traffic == Traffic.ITEM) {
+			item();
+		} else if (positioned) {
+			opcode(164);
+			outbound.put((byte) 5);
+			putLEShortA(x + random.nextInt(13) - 6);
+			putLEShort(y + random.nextInt(13) - 6);
+			outbound.put((byte) 0);
+		}
+		if (outbound.position() > queued) {
+			statistics.actions.increment();
+			if (actionSent == 0) {
+				actionSent = now;
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Sends the next step of item traffic: spawning an item, dropping it and
+	 * picking it back up.
+	 */
+	private void item() {
+		switch (itemStage) {
+		case 0:
+			byte[] command = ("item " + ITEM).getBytes();
+			opcode(103);
+			outbound.put((byte) (command.length + 1));
+			outbound.put(command);
+			outbound.put((byte) 10);
+			break;
+		case 1:
+			opcode(87);
+			putShortA(ITEM);
+			outbound.putShort((short) INVENTORY_INTERFACE);
+			putShortA(0);
+			break;
+		case 2:
+			if (!positioned) {
+				break;
+			}
+			opcode(236);
+			putLEShort(y);
+			outbound.putShort((short) ITEM);
+			putLEShort(x);
+			break;
+		}
+		itemStage = (itemStage + 1) % 3;
+	}
+
+	private void opcode(int opcode) {
+		outbound.put((byte) (opcode + encryption.getNextKey()));
+	}
+
+	private void putShortA(int value) {
+		outbound.put((byte) (value >> 8));
+		outbound.put((byte) (value + 128));
+	}
+
+	private void putLEShort(int value) {
+		outbound.put((byte) value);
+		outbound.put((byte) (value >> 8));
+	}
+
+	private void putLEShortA(int value) {
+		outbound.put((byte) (value + 128));
+		outbound.put((byte) (value >> 8));
+	}
+
+	/**
+	 * Writes whatever the socket accepts, the rest waits for the next flush.
+	 */
+	public void flush() {
+		if (state == State.CLOSED || outbound.position() == 0) {
+			return;
+		}
+		outbound.flip();
+		try {
+			statistics.bytesOut.add(channel.write(outbound));
+			outbound.compact();
+		} catch (IOException e) {
+			outbound.clear();
+			close();
+		}
+	}
+
+	/**
+	 * Closes the connection, counting a refused login or a lost session.
+	 */
+	public void close() {
+		if (state == State.IN_GAME) {
+			statistics.disconnects.increment();
+		} else if (state != State.CLOSED) {
+			statistics.refuse(response);
+		}
+		logout();
+	}
+
+	/**
+	 * Closes the connection at the end of a run without counting it as lost.
+	 */
+	public void logout() {
+		if (state == State.CLOSED) {
+			return;
+		}
+		if (state == State.IN_GAME) {
+			statistics.online.decrementAndGet();
+		}
+		state = State.CLOSED;
+		if (key != null) {
+			key.cancel();
+		}
+		try {
+			if (channel != null) {
+				channel.close();
+			}
+		} catch (IOException e) {
+		}
+	}
+
+	/**
+	 * @return true once the connection is closed
+	 */
+	public boolean isClosed() {
+		return state == State.CLOSED;
+	}
+
+	/**
+	 * Writes a newline terminated string.
+	 */
+	private static void putString(ByteBuffer buffer, String value) {
+		buffer.put(value.getBytes());
+		buffer.put((byte) 10);
+	}
+
+	/**
+	 * Packs chat text made only of the thirteen most frequent characters,
+	 * two to a byte.
+	 */
+	private static byte[] pack(String text) {
+		byte[] packed = new byte[(text.length() + 1) / 2];
+		for (int i = 0; i < text.length(); i++) {
+			int index = 0;
+			while (ProtocolUtils.XLATE_TABLE[index] != text.charAt(i)) {
+				index++;
+			}
+			packed[i / 2] |= (i & 1) == 0 ? index << 4 : index;
+		}
+		return packed;
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark.load;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import org.solace.util.Constants;
+
+/**
+ * Logs a crowd of simulated clients into a running server and keeps them
+ * busy, reporting login latency, update timing and throughput as it goes.
+ * Configured through system properties:
+ * <ul>
+ * <li>{@code load.host}, {@code load.port}: the server, local by default</li>
+ * <li>{@code load.bots}: the number of bots, the player limit by default</li>
+ * <li>{@code load.rate}: logins started per second</li>
+ * <li>{@code load.duration}: seconds to run for once every bot is started</li>
+ * <li>{@code load.interval}: milliseconds between two actions of a bot</li>
+ * <li>{@code load.mix}: the traffic mix, such as {@code walk=60,chat=20}</li>
+ * <li>{@code load.prefix}: the start of every bot username</li>
+ * <li>{@code load.reactors}: the number of threads driving the bots</li>
+ * <li>{@code load.report}: seconds between two reports</li>
+ * </ul>
+ *
+ * @author Faris
+ */
+public class LoadGenerator {
+
+	public static void main(String[] args) throws Exception {
+		InetSocketAddress address = new InetSocketAddress(System.getProperty(
+				"load.host", "127.0.0.1"), Integer.getInteger("load.port",
+				Constants.SERVER_LISTEN_PORT));
+		int bots = Integer.getInteger("load.bots", Constants.SERVER_MAX_PLAYERS);
+		int rate = Math.max(1, Integer.getInteger("load.rate", 100));
+		long duration = TimeUnit.SECONDS.toNanos(Integer.getInteger("load.duration", 300));
+		long interval = TimeUnit.MILLISECONDS.toNanos(Integer.getInteger(
+				"load.interval", Constants.SERVER_CYCLE_RATE));
+		int[] weights = Traffic.parse(System.getProperty("load.mix",
+				"walk=60,chat=20,combat=10,item=10"));
+		String prefix = System.getProperty("load.prefix", "bot");
+		long report = TimeUnit.SECONDS.toNanos(Integer.getInteger("load.report", 5));
+		BotReactor[] reactors = new BotReactor[Integer.getInteger("load.reactors",
+				Runtime.getRuntime().availableProcessors())];
+
+		LoadStatistics statistics = new LoadStatistics();
+		for (int i = 0; i < reactors.length; i++) {
+			reactors[i] = new BotReactor("BotReactor [id=" + i + "]");
+			reactors[i].start();
+		}
+		System.out.println("Starting " + bots + " bots against " + address
+				+ " at " + rate + " logins per second.");
+
+		long start = System.nanoTime();
+		long nextReport = start + report;
+		for (int i = 0; i < bots; i++) {
+			reactors[i % reactors.length].submit(new BotSession(address,
+					prefix + i, "loadtest", statistics, weights, interval, i));
+			long due = start + TimeUnit.SECONDS.toNanos(i + 1) / rate;
+			nextReport = await(due, nextReport, report, statistics);
+		}
+		nextReport = await(System.nanoTime() + duration, nextReport, report,
+				statistics);
+
+		for (BotReactor reactor : reactors) {
+			reactor.terminate();
+		}
+		System.out.println("Final: " + statistics.report());
+	}
+
+	/**
+	 * Sleeps until the given time, printing reports as they fall due.
+	 *
+	 * @return when the next report is due
+	 */
+	private static long await(long until, long nextReport, long report,
+			LoadStatistics statistics) throws InterruptedException {
+		long now;
+		while ((now = System.nanoTime()) < until) {
+			if (now >= nextReport) {
+				System.out.println(statistics.report());
+				nextReport += report;
+			}
+			TimeUnit.NANOSECONDS.sleep(Math.min(until, nextReport) - now);
+		}
+		return nextReport;
+	}
+
+}
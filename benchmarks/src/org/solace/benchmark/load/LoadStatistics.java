@@ -0,0 +1,145 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark.load;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.solace.metrics.LatencyRecorder;
+
+/**
+ * Figures gathered by every bot of a load run, safe from any reactor.
+ *
+ * @author Faris
+ */
+public class LoadStatistics {
+
+	/**
+	 * Time from connecting to receiving the login response.
+	 */
+	final LatencyRecorder loginLatency = new LatencyRecorder();
+
+	/**
+	 * Time between two player updates, which should be a game cycle.
+	 */
+	final LatencyRecorder tickInterval = new LatencyRecorder();
+
+	/**
+	 * Time from sending an action to the next player update.
+	 */
+	final LatencyRecorder actionLatency = new LatencyRecorder();
+
+	/**
+	 * The bytes received and sent.
+	 */
+	final LongAdder bytesIn = new LongAdder(), bytesOut = new LongAdder();
+
+	/**
+	 * The packets received and actions sent.
+	 */
+	final LongAdder packetsIn = new LongAdder(), actions = new LongAdder();
+
+	/**
+	 * Stands for a login closed or timed out before any response.
+	 */
+	static final int NO_RESPONSE = 256;
+
+	/**
+	 * Logins accepted, and sessions lost after logging in.
+	 */
+	final LongAdder loginsAccepted = new LongAdder(), disconnects = new LongAdder();
+
+	/**
+	 * Logins refused, by login response.
+	 */
+	private final AtomicLongArray refusals = new AtomicLongArray(NO_RESPONSE + 1);
+
+	/**
+	 * Sessions whose inbound stream could not be framed.
+	 */
+	final LongAdder desyncs = new LongAdder();
+
+	/**
+	 * The bots currently in game.
+	 */
+	final AtomicInteger online = new AtomicInteger();
+
+	/**
+	 * The totals at the last report, used to work out rates.
+	 */
+	private long lastBytesIn, lastBytesOut, lastReport = System.nanoTime();
+
+	/**
+	 * Counts a refused login.
+	 *
+	 * @param response
+	 *            the login response, or {@link #NO_RESPONSE}
+	 */
+	void refuse(int response) {
+		refusals.incrementAndGet(response);
+	}
+
+	/**
+	 * Gets a printable report of the figures since the run started, with byte
+	 * rates since the previous report.
+	 *
+	 * @return the report
+	 */
+	public synchronized String report() {
+		long now = System.nanoTime();
+		double seconds = Math.max(now - lastReport, 1) / 1e9;
+		long in = bytesIn.sum(), out = bytesOut.sum();
+		String report = String.format(
+				"online=%d logins=%d refused=%s lost=%d desync=%d | "
+						+ "login ms %s | tick ms %s | action ms %s | "
+						+ "in %.1f KB/s (%d packets) out %.1f KB/s (%d actions)",
+				online.get(), loginsAccepted.sum(), refusals(),
+				disconnects.sum(), desyncs.sum(), milliseconds(loginLatency),
+				milliseconds(tickInterval), milliseconds(actionLatency),
+				(in - lastBytesIn) / seconds / 1024, packetsIn.sum(),
+				(out - lastBytesOut) / seconds / 1024, actions.sum());
+		lastBytesIn = in;
+		lastBytesOut = out;
+		lastReport = now;
+		return report;
+	}
+
+	/**
+	 * Formats the refused logins as response:count pairs, "none" standing
+	 * for logins that got no response.
+	 */
+	private String refusals() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < refusals.length(); i++) {
+			long count = refusals.get(i);
+			if (count > 0) {
+				builder.append(builder.length() == 0 ? "" : ",")
+						.append(i == NO_RESPONSE ? "none" : String.valueOf(i))
+						.append(':').append(count);
+			}
+		}
+		return builder.length() == 0 ? "0" : builder.toString();
+	}
+
+	/**
+	 * Formats the median, 99th percentile and maximum of a recorder.
+	 */
+	private static String milliseconds(LatencyRecorder recorder) {
+		return String.format("%.1f/%.1f/%.1f", recorder.percentile(50) / 1000.0,
+				recorder.percentile(99) / 1000.0, recorder.maximum() / 1000.0);
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.benchmark.load;
+
+import java.util.Random;
+
+/**
+ * The kinds of traffic a bot produces, picked by weight each time a bot acts.
+ *
+ * @author Faris
+ */
+public enum Traffic {
+
+	/**
+	 * Walks to a nearby tile.
+	 */
+	WALK,
+
+	/**
+	 * Says something in public chat.
+	 */
+	CHAT,
+
+	/**
+	 * Attacks a visible NPC.
+	 */
+	COMBAT,
+
+	/**
+	 * Spawns, drops and picks up an item.
+	 */
+	ITEM;
+
+	/**
+	 * Parses a traffic mix of the form {@code walk=60,chat=20,combat=10}.
+	 * Kinds left out of the mix are never picked.
+	 *
+	 * @param mix
+	 *            the mix
+	 *
+	 * @return the weight of each kind, by ordinal
+	 */
+	public static int[] parse(String mix) {
+		int[] weights = new int[values().length];
+		for (String entry : mix.split(",")) {
+			String[] pair = entry.trim().split("=");
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("Invalid traffic entry: " + entry);
+			}
+			weights[valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer
+					.parseInt(pair[1].trim());
+		}
+		return weights;
+	}
+
+	/**
+	 * Picks a kind of traffic.
+	 *
+	 * @param weights
+	 *            the weight of each kind, by ordinal
+	 * @param random
+	 *            the random source
+	 *
+	 * @return the kind, or null if every weight is zero
+	 */
+	public static Traffic pick(int[] weights, Random random) {
+		int total = 0;
+		for (int weight : weights) {
+			total += weight;
+		}
+		if (total <= 0) {
+			return null;
+		}
+		int roll = random.nextInt(total);
+		for (Traffic traffic : values()) {
+			roll -= weights[traffic.ordinal()];
+			if (roll < 0) {
+				return traffic;
+			}
+		}
+		return null;
+	}
+
+}
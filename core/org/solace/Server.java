@@ -18,8 +18,7 @@ package org.solace;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import mint.event.EventManager;
-import mint.event.UniversalEventManager;
+import org.solace.event.EventManager;
 import org.solace.event.EventSystemHandler;
 import org.solace.event.listener.AttackListener;
 import org.solace.event.listener.PlayerDisconnectionListener;
@@ -31,10 +30,8 @@ import org.solace.event.listener.SpecialAttackListener;
 import org.solace.game.Game;
 import org.solace.game.content.combat.specials.SpecialAttackManager;
 import org.solace.game.entity.mobile.player.command.CommandHandler;
-import org.solace.network.NIOSelector;
+import org.solace.metrics.Metrics;
 import org.solace.network.NIOServer;
-import org.solace.task.TaskExecuter;
-import org.solace.task.impl.MaintainedNetworkTask;
 import org.solace.task.impl.ShutdownExecutionTask;
 import org.solace.util.Constants;
 import org.solace.util.XStreamUtil;
@@ -52,19 +49,11 @@ public class Server {
     /**
      * Creates a new instance of the event system handler
      */
-    private static EventSystemHandler service = new EventSystemHandler(600);
+    private static EventSystemHandler service = new EventSystemHandler();
     /**
      * Creates a new instance of the event manager
      */
-    private static EventManager eventManager = new UniversalEventManager();
-    /**
-     * NIOselector instance for networking
-     */
-    public static NIOSelector selector;
-    /**
-     * Handles the timed listening for new connections
-     */
-    public static MaintainedNetworkTask networkTask;
+    private static EventManager eventManager = new EventManager();
 
     /**
      * Pre-loads any required data for game
@@ -73,7 +62,7 @@ public class Server {
      */
     private void init() throws Exception {
         Runtime.getRuntime().addShutdownHook(new ShutdownExecutionTask());
-        selector = new NIOSelector();
+        Metrics.register();
         XStreamUtil.loadAllXmlData();
         SpecialAttackManager.loadSpecials();
         CommandHandler.loadCommands();
@@ -86,8 +75,6 @@ public class Server {
      */
     private void constructNetwork() throws IOException {
         NIOServer.bind(Constants.SERVER_LISTEN_PORT);
-        networkTask = new MaintainedNetworkTask(selector);
-        TaskExecuter.get().schedule(networkTask);
         logger.info("Constructing network backend...");
     }
 
@@ -15,8 +15,11 @@
  */
 package org.solace.event;
 
+import org.solace.task.TimingWheel.Timer;
+
 /**
- * An executable service.
+ * An executable service, run on the game thread and only to be stopped
+ * there.
  *
  * @author Thomas Nappo
  * @author Graham Edgecombe
@@ -37,20 +40,9 @@ public abstract class Event {
         return delay;
     }
     /**
-     * The countdown amount of the service. Once this reaches <tt>0</tt> the
-     * service's context is executed.
-     */
-    private int countdown;
-
-    /**
-     * Gets the service's {@link #countdown}.
-     *
-     * @return The countdown amount of the service. Once this reaches <tt>0</tt>
-     * the service's context is executed.
+     * The timer the service waits on, null until it is scheduled.
      */
-    public int getCountdown() {
-        return countdown;
-    }
+    private Timer<Event> timer;
     /**
      * Whether or not the service is running.
      */
@@ -72,7 +64,6 @@ public abstract class Event {
      */
     public Event(int delay) {
         this.delay = delay;
-        this.countdown = delay;
         this.running = true;
     }
 
@@ -84,24 +75,20 @@ public abstract class Event {
     }
 
     /**
-     * Stops the service from executing.
+     * Stops the service from executing, taking it off the wheel.
      */
     public void stop() {
         running = false;
+        if (timer != null) {
+            timer.cancel();
+        }
     }
 
     /**
-     * Updates the countdown and executes the service's context if the service
-     * is ready.
-     *
-     * @return Whether or not the service is still running.
+     * Sets the timer the service waits on, once it is scheduled.
      */
-    public boolean tick() {
-        if (running && --countdown <= 0) {
-            execute();
-            countdown = delay;
-        }
-        return running;
+    void timer(Timer<Event> timer) {
+        this.timer = timer;
     }
 
     /**
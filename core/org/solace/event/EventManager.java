@@ -0,0 +1,209 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.event;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.solace.util.NamedThreadFactory;
+
+/**
+ * Dispatches {@link GameEvent}s to the {@link EventHandler}s of registered
+ * {@link EventListener}s. Handlers are looked up once when their listener is
+ * registered and compiled into direct calls, kept in an array per event
+ * class, so dispatching an event is a map lookup and a call per handler,
+ * with no reflection or allocation.
+ * <p>
+ * An event is handled by the handlers of its exact class, in the order their
+ * listeners were registered.
+ *
+ * @author Faris
+ */
+public final class EventManager {
+
+    /**
+     * A logger used to report error messages.
+     */
+    private static final Logger logger = Logger.getLogger(EventManager.class.getName());
+
+    /**
+     * A handler method bound to its listener.
+     */
+    interface Invoker {
+
+        void handle(GameEvent event) throws Exception;
+    }
+
+    /**
+     * The handlers of each event class, replaced as a whole when a listener
+     * is registered so dispatching never has to lock.
+     */
+    private volatile Map<Class<?>, Invoker[]> invokers = new HashMap<Class<?>, Invoker[]>();
+
+    /**
+     * The worker running asynchronous handlers, started by the first one
+     * registered.
+     */
+    private ExecutorService worker;
+
+    /**
+     * Dispatches an event to every handler of its class. An exception thrown
+     * by a handler is passed on to the caller.
+     *
+     * @param event the event to dispatch
+     */
+    public void dispatchEvent(GameEvent event) {
+        Invoker[] invokers = this.invokers.get(event.getClass());
+        if (invokers == null) {
+            return;
+        }
+        for (Invoker invoker : invokers) {
+            try {
+                invoker.handle(event);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Registers every {@link EventHandler} method of a listener.
+     *
+     * @param listener the event listener to register
+     * @throws IllegalArgumentException if a handler does not take a single
+     * event
+     */
+    public synchronized void registerListener(EventListener listener) {
+        Map<Class<?>, Invoker[]> invokers = new HashMap<Class<?>, Invoker[]>(this.invokers);
+        for (Method method : listener.getClass().getMethods()) {
+            EventHandler handler = method.getAnnotation(EventHandler.class);
+            if (handler == null) {
+                continue;
+            }
+            Class<?>[] parameters = method.getParameterTypes();
+            if (parameters.length != 1 || !GameEvent.class.isAssignableFrom(parameters[0])) {
+                throw new IllegalArgumentException("Event handler must take a single event: " + method);
+            }
+            Invoker invoker = compile(listener, method);
+            if (handler.async()) {
+                invoker = async(invoker);
+            }
+            Invoker[] existing = invokers.get(parameters[0]);
+            if (existing == null) {
+                existing = new Invoker[0];
+            }
+            Invoker[] updated = Arrays.copyOf(existing, existing.length + 1);
+            updated[existing.length] = invoker;
+            invokers.put(parameters[0], updated);
+        }
+        this.invokers = invokers;
+    }
+
+    /**
+     * Compiles a handler method into an invoker calling it directly. Methods
+     * the generated invoker cannot reach are called through a method handle.
+     */
+    private static Invoker compile(EventListener listener, Method method) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle target;
+        try {
+            target = lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            method.setAccessible(true);
+            try {
+                target = lookup.unreflect(method);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalArgumentException("Event handler is not accessible: " + method, ex);
+            }
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "handle",
+                    MethodType.methodType(Invoker.class, listener.getClass()),
+                    MethodType.methodType(void.class, GameEvent.class), target,
+                    MethodType.methodType(void.class, method.getParameterTypes()[0]));
+            return (Invoker) site.getTarget().invoke(listener);
+        } catch (Throwable t) {
+            final MethodHandle bound = target.bindTo(listener)
+                    .asType(MethodType.methodType(void.class, GameEvent.class));
+            return new Invoker() {
+                @Override
+                public void handle(GameEvent event) throws Exception {
+                    try {
+                        bound.invokeExact(event);
+                    } catch (Exception | Error e) {
+                        throw e;
+                    } catch (Throwable t) {
+                        throw new RuntimeException(t);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Wraps an invoker to run on the event worker, logging what it throws.
+     */
+    private Invoker async(final Invoker invoker) {
+        if (worker == null) {
+            worker = Executors.newSingleThreadExecutor(new NamedThreadFactory("EventWorker"));
+        }
+        final ExecutorService worker = this.worker;
+        return new Invoker() {
+            @Override
+            public void handle(final GameEvent event) {
+                worker.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            invoker.handle(event);
+                        } catch (Exception e) {
+                            logger.log(Level.SEVERE, "Exception in asynchronous event handler.", e);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Stops taking asynchronous events, and waits for those already
+     * dispatched to be handled.
+     */
+    public synchronized void terminate() {
+        if (worker == null) {
+            return;
+        }
+        worker.shutdown();
+        try {
+            worker.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
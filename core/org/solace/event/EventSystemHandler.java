@@ -16,16 +16,15 @@
 package org.solace.event;
 
 import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import org.solace.task.GameEngine;
+import org.solace.task.TimingWheel;
+import org.solace.task.TimingWheel.Timer;
 
 /**
- * Schedules {@link Event}s to be ran at the proper time.
+ * Schedules {@link Event}s to be ran at the proper time, counted in cycles of
+ * the {@link GameEngine}. Services wait on a {@link TimingWheel}, so only
+ * those due are touched.
  *
  * @author Thomas Nappo
  * @author Graham Edgecombe
@@ -33,35 +32,9 @@ import java.util.concurrent.TimeUnit;
 public class EventSystemHandler implements Runnable {
 
     /**
-     * Constructs a new service delegate.
-     *
-     * @param span The time units which need to pass between each service
-     * execution.
-     * @param unit Time {@link TimeUnit} of the cycles.
-     */
-    public EventSystemHandler(int span, TimeUnit unit) {
-        service.scheduleAtFixedRate(this, 0, span, unit);
-    }
-
-    /**
-     * Constructs a new service delegate which cycles in
-     * {@link TimeUnit#MILLISECONDS}.
-     *
-     * @param span The time units which need to pass between each service
-     * execution.
+     * The wheel the managed services of the delegate wait on.
      */
-    public EventSystemHandler(int span) {
-        this(span, TimeUnit.MILLISECONDS);
-    }
-    /**
-     * Schedules this delegate to be ran at the {@link #span} rate.
-     */
-    private final ScheduledExecutorService service = Executors
-            .newSingleThreadScheduledExecutor();
-    /**
-     * Lists the managed services of the delegate.
-     */
-    private final List<Event> services = new ArrayList<Event>();
+    private final TimingWheel<Event> services = new TimingWheel<Event>();
     /**
      * Queues the services which are still appending.
      */
@@ -78,23 +51,47 @@ public class EventSystemHandler implements Runnable {
         }
     }
 
+    /**
+     * Executes the services due, called once a cycle by the
+     * {@link GameEngine}. A new service is first due once its delay has
+     * passed, counting this cycle.
+     */
     @Override
     public void run() {
+        services.advance();
         synchronized (serviceQueue) {
             Event service;
             while ((service = serviceQueue.poll()) != null) {
-                services.add(service);
+                if (service.isRunning()) {
+                    service.timer(services.schedule(service, delay(service) - 1));
+                }
             }
         }
 
-        for (Iterator<Event> it = services.iterator(); it.hasNext();) {
-            Event service = it.next();
+        Timer<Event> timer;
+        while ((timer = services.poll()) != null) {
+            Event service = timer.target();
             try {
-                if (!service.tick()) {
-                    it.remove();
-                }
+                service.execute();
             } catch (Throwable t) {
             }
+            if (service.isRunning()) {
+                services.reschedule(timer, delay(service));
+            }
         }
     }
+
+    /**
+     * Services with no delay run every cycle.
+     */
+    private static int delay(Event service) {
+        return Math.max(service.getDelay(), 1);
+    }
+
+    /**
+     * @return a printable summary of the services run by type
+     */
+    public String statistics() {
+        return services.statistics("Event");
+    }
 }
@@ -13,27 +13,14 @@
  * Solace. If not, see <http://www.gnu.org/licenses/>.
  *
  */
-package org.solace.task.impl;
-
-import org.solace.network.NIOSelector;
-import org.solace.task.Task;
+package org.solace.event;
 
 /**
- * Task which maintains listening on the network for connections
+ * Marks a class as an event which can be dispatched through the
+ * {@link EventManager}.
+ *
  * @author Faris
  */
-public class MaintainedNetworkTask extends Task{
-    
-    public MaintainedNetworkTask(NIOSelector selector){
-        this.selector = selector;
-    }
-    
-    NIOSelector selector;
-
-    @Override
-    public void execute() {
-        selector.select();
-    }
+public interface GameEvent {
 
-    
 }
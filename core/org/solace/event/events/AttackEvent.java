@@ -15,10 +15,10 @@
  */
 package org.solace.event.events;
 
-import mint.event.Event;
+import org.solace.event.GameEvent;
 import org.solace.game.entity.mobile.Mobile;
 
-public class AttackEvent implements Event {
+public class AttackEvent implements GameEvent {
 
     private final Mobile attacker;
 
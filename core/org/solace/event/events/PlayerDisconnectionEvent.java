@@ -15,14 +15,14 @@
  */
 package org.solace.event.events;
 
-import mint.event.Event;
+import org.solace.event.GameEvent;
 import org.solace.game.entity.mobile.player.Player;
 
 /**
  *
  * @author Faris <https://github.com/faris-mckay>
  */
-public class PlayerDisconnectionEvent implements Event {
+public class PlayerDisconnectionEvent implements GameEvent {
     
     private Player player;
 
@@ -15,11 +15,11 @@
  */
 package org.solace.event.events;
 
-import mint.event.Event;
+import org.solace.event.GameEvent;
 
 import org.solace.game.entity.mobile.player.Player;
 
-public class PlayerLoadEvent implements Event {
+public class PlayerLoadEvent implements GameEvent {
 
     private Player player;
 
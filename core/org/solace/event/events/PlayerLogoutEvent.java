@@ -15,7 +15,7 @@
  */
 package org.solace.event.events;
 
-import mint.event.Event;
+import org.solace.event.GameEvent;
 
 import org.solace.game.entity.mobile.player.Player;
 
@@ -25,7 +25,7 @@ import org.solace.game.entity.mobile.player.Player;
  * @author Tim
  *
  */
-public class PlayerLogoutEvent implements Event {
+public class PlayerLogoutEvent implements GameEvent {
 
     private Player player;
 
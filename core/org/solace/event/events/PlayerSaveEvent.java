@@ -15,10 +15,10 @@
  */
 package org.solace.event.events;
 
-import mint.event.Event;
+import org.solace.event.GameEvent;
 import org.solace.game.entity.mobile.player.Player;
 
-public class PlayerSaveEvent implements Event {
+public class PlayerSaveEvent implements GameEvent {
 
     private Player player;
 
@@ -57,7 +57,7 @@ public class EntityFollowService extends Event {
             }
             follower.getMobilityManager().prepare();
             follower.getMobilityManager().queueDestination(
-                    new Location(last.lastX, last.lastY));
+                    last.lastX, last.lastY);
             follower.getMobilityManager().finish();
         } else {
             follower.getMobilityManager().prepare();
@@ -74,8 +74,7 @@ public class EntityFollowService extends Event {
                 y -= 1;
             }
             follower.getMobilityManager().prepare();
-            follower.getMobilityManager().queueDestination(
-                    new Location(x, y));
+            follower.getMobilityManager().queueDestination(x, y);
             follower.getMobilityManager().finish();
         }
         follower.getUpdateFlags().faceEntity(leader.getIndex() + ((leader instanceof Player) ? 32768 : 0));
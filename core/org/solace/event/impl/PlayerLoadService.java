@@ -15,13 +15,11 @@
  */
 package org.solace.event.impl;
 
-import java.io.DataInputStream;
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
 import org.solace.event.Event;
 import org.solace.game.entity.mobile.player.Player;
-import org.solace.game.item.Item;
-import org.solace.util.Constants;
+import org.solace.game.entity.mobile.player.PlayerSaveCodec;
+import org.solace.game.entity.mobile.player.SaveExecutor;
 
 /**
  *
@@ -39,93 +37,20 @@ public class PlayerLoadService extends Event {
     public void execute() {
     }
 
-    public boolean load() {
+    public boolean load() throws IOException {
         return loadgame(player);
     }
 
     /**
-     * Loads the players details from the binary file
+     * Loads the players details from their save, or from the save still
+     * waiting to be written if they logged out moments ago
      *
      * @param player The player to be loaded
-     * @return
+     * @return false if the credentials do not match the save
+     * @throws IOException if the save could not be read or is corrupt
      */
-    public boolean loadgame(Player player) {
-        String folder = Constants.PLAYER_SAVE_DIRECTORY
-                + player.getAuthentication().getUsername().toLowerCase()
-                .charAt(0) + "/";
-        File file = new File(folder + player.getAuthentication().getUsername()
-                + ".dat");
-        if (file.exists()) {
-            try {
-                FileInputStream inFile = new FileInputStream(file);
-                DataInputStream load = new DataInputStream(inFile);
-                String username = load.readUTF();
-                if (!username.equalsIgnoreCase(player.getAuthentication()
-                        .getUsername())) {
-                    load.close();
-                    return false;
-                }
-                player.getAuthentication().setUsername(username);
-                String password = load.readUTF();
-                if (!password.equalsIgnoreCase(player.getAuthentication()
-                        .getPassword())) {
-                    load.close();
-                    return false;
-                }
-                player.getAuthentication().setPassword(password);
-                player.getLocation().setX(load.readInt());
-                player.getLocation().setY(load.readInt());
-                player.getLocation().setH(load.readInt());
-                player.getAuthentication().setPlayerRights(load.readInt());
-                player.getMobilityManager().running(load.readBoolean());
-                player.getSettings().setAutoRetaliating(load.readBoolean());
-                player.getSettings().setVolume(load.readInt());
-                player.getSettings().setSound(load.readInt());
-                player.getSettings().setBrightness(load.readInt());
-                for (int i = 0; i < player.getAuthentication().appearanceIndex.length; i++) {
-                    player.getAuthentication().setPlayerAppearanceIndex(i,
-                            load.readInt());
-                }
-                for (int i = 0; i < player.getSkills().getPlayerLevel().length; i++) {
-                    player.getSkills().getPlayerLevel()[i] = load.readInt();
-                }
-                for (int i = 0; i < player.getSkills().getPlayerExp().length; i++) {
-                    player.getSkills().getPlayerExp()[i] = load.readInt();
-                }
-                for (int i = 0; i < 28; i++) {
-                    int id = load.readInt();
-                    if (id != 65535) {
-                        int amount = load.readInt();
-                        Item item = new Item(id, amount);
-                        player.getInventory().set(i, item);
-                    }
-                }
-                for (int i = 0; i < 14; i++) {
-                    int id = load.readInt();
-                    if (id != 65535) {
-                        int amount = load.readInt();
-                        Item item = new Item(id, amount);
-                        player.getEquipment().set(i, item);
-                    }
-                }
-                for (int i = 0; i < 352; i++) {
-                    int id = load.readInt();
-                    if (id != 65535) {
-                        int amount = load.readInt();
-                        Item item = new Item(id, amount);
-                        player.getBanking().set(i, item);
-                    }
-                }
-                for (int i = 0; i < player.getPrivateMessaging().getFriends().length; i++) {
-                    player.getPrivateMessaging().getFriends()[i] = load.readLong();
-                }
-                for (int i = 0; i < player.getPrivateMessaging().getIgnores().length; i++) {
-                    player.getPrivateMessaging().getIgnores()[i] = load.readLong();
-                }
-                load.close();
-            } catch (Exception e) {
-            }
-        }
-        return true;
+    public boolean loadgame(Player player) throws IOException {
+        byte[] save = SaveExecutor.read(player.getAuthentication().getUsername());
+        return save == null || PlayerSaveCodec.decode(player, save);
     }
 }
@@ -15,9 +15,8 @@
  */
 package org.solace.event.listener;
 
-import mint.event.EventHandler;
-import mint.event.EventListener;
-
+import org.solace.event.EventHandler;
+import org.solace.event.EventListener;
 import org.solace.event.events.AttackEvent;
 import org.solace.game.content.combat.Combat;
 
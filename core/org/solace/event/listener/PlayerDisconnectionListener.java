@@ -18,8 +18,8 @@ package org.solace.event.listener;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import mint.event.EventHandler;
-import mint.event.EventListener;
+import org.solace.event.EventHandler;
+import org.solace.event.EventListener;
 import org.solace.Server;
 import org.solace.event.events.PlayerDisconnectionEvent;
 import org.solace.event.events.PlayerSaveEvent;
@@ -33,7 +33,8 @@ public class PlayerDisconnectionListener implements EventListener {
     
     @EventHandler
     public void handleDisconnection(PlayerDisconnectionEvent event) {
-        if (event.getPlayer().channelContext().channel() == null) {
+        if (event.getPlayer().channelContext().channel() == null
+                || !event.getPlayer().channelContext().channel().isOpen()) {
             Server.getEventManager().dispatchEvent(new PlayerSaveEvent(event.getPlayer()));
             event.getPlayer().getPrivateMessaging().refresh(true);
             Game.getSingleton().deregister(event.getPlayer());
@@ -43,6 +44,7 @@ public class PlayerDisconnectionListener implements EventListener {
         Server.getEventManager().dispatchEvent(new PlayerSaveEvent(event.getPlayer()));
         event.getPlayer().getPacketDispatcher().sendLogout();
         try {
+            event.getPlayer().channelContext().flush();
             event.getPlayer().channelContext().channel().close();
         } catch (IOException ex) {
             Logger.getLogger(PlayerLogoutListener.class.getName()).log(Level.SEVERE, null, ex);
@@ -15,9 +15,8 @@
  */
 package org.solace.event.listener;
 
-import mint.event.EventHandler;
-import mint.event.EventListener;
-
+import org.solace.event.EventHandler;
+import org.solace.event.EventListener;
 import org.solace.Server;
 import org.solace.event.events.PlayerLoginEvent;
 import org.solace.game.Game;
@@ -30,7 +29,7 @@ public class PlayerLoginListener implements EventListener {
     public void handleLogin(PlayerLoginEvent event) {
         Server.logger.info("[Registry]: new connection made from player: " + event.getPlayer().getAuthentication().getUsername());
         event.getPlayer().getPacketDispatcher().sendMessage("Welcome " + event.getPlayer().getAuthentication().getUsername() + ", to " + Constants.SERVER_NAME);
-        event.getPlayer().getPacketDispatcher().sendMessage("Current players: " + (Game.getPlayerRepository().size() + Game.registryQueue.size()));
+        event.getPlayer().getPacketDispatcher().sendMessage("Current players: " + Game.getPlayerCount());
         event.getPlayer().getEquipment().refreshItems();
         event.getPlayer().getInventory().refreshItems();
         for (int i = 0; i < SkillHandler.MAXIMUM_SKILLS; i++) {
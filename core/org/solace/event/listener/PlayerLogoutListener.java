@@ -19,9 +19,8 @@ import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import mint.event.EventHandler;
-import mint.event.EventListener;
-
+import org.solace.event.EventHandler;
+import org.solace.event.EventListener;
 import org.solace.Server;
 import org.solace.event.events.PlayerLogoutEvent;
 import org.solace.event.events.PlayerSaveEvent;
@@ -45,6 +44,7 @@ public class PlayerLogoutListener implements EventListener {
         Server.getEventManager().dispatchEvent(new PlayerSaveEvent(event.getPlayer()));
         event.getPlayer().getPacketDispatcher().sendLogout();
         try {
+            event.getPlayer().channelContext().flush();
             event.getPlayer().channelContext().channel().close();
         } catch (IOException ex) {
             Logger.getLogger(PlayerLogoutListener.class.getName()).log(Level.SEVERE, null, ex);
@@ -15,9 +15,8 @@
  */
 package org.solace.event.listener;
 
-import mint.event.EventHandler;
-import mint.event.EventListener;
-
+import org.solace.event.EventHandler;
+import org.solace.event.EventListener;
 import org.solace.event.events.ProcessCommandEvent;
 import org.solace.game.entity.mobile.player.command.CommandHandler;
 
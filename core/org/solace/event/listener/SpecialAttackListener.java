@@ -15,8 +15,8 @@
  */
 package org.solace.event.listener;
 
-import mint.event.EventHandler;
-import mint.event.EventListener;
+import org.solace.event.EventHandler;
+import org.solace.event.EventListener;
 import org.solace.event.events.SpecialAttackEvent;
 import org.solace.game.content.combat.specials.SpecialAttackManager;
 import org.solace.game.item.container.impl.Equipment;
@@ -0,0 +1,159 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram in microseconds. Values are bucketed by their
+ * power of two and split into sixteen linear sub buckets, so any recorded
+ * value is reported to within about six percent while the whole histogram
+ * stays a fixed array of counters.
+ *
+ * @author Faris
+ */
+public class LatencyRecorder {
+
+	/**
+	 * Number of bits used for the linear sub buckets of a power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/**
+	 * Number of linear sub buckets per power of two.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * The highest power of two tracked, values above are clamped.
+	 */
+	private static final int MAXIMUM_EXPONENT = 40;
+
+	/**
+	 * The counts of each bucket.
+	 */
+	private final AtomicLongArray buckets = new AtomicLongArray(index(1L << MAXIMUM_EXPONENT) + 1);
+
+	/**
+	 * The number of recorded values, their sum and the largest value.
+	 */
+	private final AtomicLong count = new AtomicLong(), total = new AtomicLong(),
+			maximum = new AtomicLong();
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(nanos / 1000, 0);
+		buckets.incrementAndGet(index(Math.min(micros, 1L << MAXIMUM_EXPONENT)));
+		count.incrementAndGet();
+		total.addAndGet(micros);
+		long current;
+		while (micros > (current = maximum.get())) {
+			if (maximum.compareAndSet(current, micros)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Gets the value at the given percentile.
+	 *
+	 * @param percentile
+	 *            the percentile, between 0 and 100
+	 *
+	 * @return the value in microseconds, or 0 if nothing was recorded
+	 */
+	public long percentile(double percentile) {
+		long recorded = count.get();
+		if (recorded == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(recorded * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < buckets.length(); i++) {
+			seen += buckets.get(i);
+			if (seen >= target) {
+				return Math.min(lowestValue(i + 1) - 1, maximum.get());
+			}
+		}
+		return maximum.get();
+	}
+
+	/**
+	 * @return the number of recorded values
+	 */
+	public long count() {
+		return count.get();
+	}
+
+	/**
+	 * @return the mean value in microseconds
+	 */
+	public long mean() {
+		long recorded = count.get();
+		return recorded == 0 ? 0 : total.get() / recorded;
+	}
+
+	/**
+	 * @return the largest value in microseconds
+	 */
+	public long maximum() {
+		return maximum.get();
+	}
+
+	/**
+	 * Discards every recorded value.
+	 */
+	public void reset() {
+		for (int i = 0; i < buckets.length(); i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		maximum.set(0);
+	}
+
+	/**
+	 * Gets the bucket a value is counted in.
+	 */
+	private static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+		return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Gets the lowest value counted in a bucket.
+	 */
+	private static long lowestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + sub) << shift;
+	}
+
+}
@@ -0,0 +1,275 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+
+/**
+ * Latency and throughput figures for each phase of the game cycle. Phases
+ * are timed with {@link #record(Phase, long)} and totals are bumped with
+ * {@link #add(Counter, long)}, both safe from any thread. The figures are
+ * exposed over JMX and logged periodically by the engine clean task.
+ *
+ * @author Faris
+ */
+public final class Metrics implements MetricsMXBean {
+
+	private static final Logger logger = Logger.getLogger(Metrics.class.getName());
+
+	/**
+	 * The timed phases of the server.
+	 */
+	public enum Phase {
+		TICK, INBOUND, TASKS, EVENTS, MINIGAMES, PLAYER_LOGIC, NPC_LOGIC,
+		PRE_UPDATE, PLAYER_UPDATE, POST_UPDATE, NPC_UPDATE, FLUSH, REGISTRY
+	}
+
+	/**
+	 * The counted totals of the server.
+	 */
+	public enum Counter {
+		PACKETS_IN, BYTES_IN, PACKETS_OUT, BYTES_OUT, PACKETS_DROPPED,
+		PLAYERS_PROCESSED, NPCS_PROCESSED, TICK_OVERRUNS, IDLE_EVICTIONS,
+		BACKLOG_EVICTIONS, SAVES_WRITTEN, SAVES_SKIPPED
+	}
+
+	/**
+	 * The singleton registered with JMX.
+	 */
+	private static final Metrics instance = new Metrics();
+
+	/**
+	 * One recorder per phase.
+	 */
+	private static final LatencyRecorder[] recorders = new LatencyRecorder[Phase.values().length];
+
+	/**
+	 * One adder per counter.
+	 */
+	private static final LongAdder[] counters = new LongAdder[Counter.values().length];
+
+	/**
+	 * Incoming packets handled and dropped, one slot per opcode.
+	 */
+	private static final LongAdder[] handled = new LongAdder[256], dropped = new LongAdder[256];
+
+	static {
+		for (int i = 0; i < handled.length; i++) {
+			handled[i] = new LongAdder();
+			dropped[i] = new LongAdder();
+		}
+		for (int i = 0; i < recorders.length; i++) {
+			recorders[i] = new LatencyRecorder();
+		}
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records the time a phase took and returns the current time, so
+	 * consecutive phases can be timed from a single clock reading each.
+	 *
+	 * @param phase
+	 *            the phase
+	 * @param start
+	 *            the {@link System#nanoTime()} the phase started at
+	 *
+	 * @return the current {@link System#nanoTime()}
+	 */
+	public static long record(Phase phase, long start) {
+		long now = System.nanoTime();
+		recorders[phase.ordinal()].record(now - start);
+		return now;
+	}
+
+	/**
+	 * Adds to a counter.
+	 *
+	 * @param counter
+	 *            the counter
+	 * @param amount
+	 *            the amount to add
+	 */
+	public static void add(Counter counter, long amount) {
+		counters[counter.ordinal()].add(amount);
+	}
+
+	/**
+	 * Increments a counter.
+	 *
+	 * @param counter
+	 *            the counter
+	 */
+	public static void increment(Counter counter) {
+		counters[counter.ordinal()].increment();
+	}
+
+	/**
+	 * Counts an incoming packet handed to its handler.
+	 *
+	 * @param opcode
+	 *            the opcode
+	 */
+	public static void handled(int opcode) {
+		handled[opcode].increment();
+	}
+
+	/**
+	 * Counts an incoming packet dropped before reaching its handler.
+	 *
+	 * @param opcode
+	 *            the opcode
+	 */
+	public static void dropped(int opcode) {
+		dropped[opcode].increment();
+		counters[Counter.PACKETS_DROPPED.ordinal()].increment();
+	}
+
+	/**
+	 * Gets the recorder of a phase.
+	 *
+	 * @param phase
+	 *            the phase
+	 *
+	 * @return the recorder
+	 */
+	public static LatencyRecorder recorder(Phase phase) {
+		return recorders[phase.ordinal()];
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server.
+	 */
+	public static void register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(instance,
+					new ObjectName("org.solace:type=Metrics"));
+		} catch (Exception e) {
+			logger.log(Level.WARNING, "Unable to register metrics with JMX", e);
+		}
+	}
+
+	/**
+	 * Gets a printable summary of every phase and counter.
+	 *
+	 * @return the summary
+	 */
+	public static String summary() {
+		StringBuilder builder = new StringBuilder("Cycle metrics (us, p50/p99/max):");
+		for (Phase phase : Phase.values()) {
+			LatencyRecorder recorder = recorder(phase);
+			builder.append(' ').append(phase.name().toLowerCase()).append('=')
+					.append(recorder.percentile(50)).append('/')
+					.append(recorder.percentile(99)).append('/')
+					.append(recorder.maximum());
+		}
+		for (Counter counter : Counter.values()) {
+			builder.append(", ").append(counter.name().toLowerCase())
+					.append('=').append(counters[counter.ordinal()].sum());
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public Map<String, Long> getMedianLatencies() {
+		return percentiles(50);
+	}
+
+	@Override
+	public Map<String, Long> getP99Latencies() {
+		return percentiles(99);
+	}
+
+	@Override
+	public Map<String, Long> getMaximumLatencies() {
+		Map<String, Long> values = new LinkedHashMap<String, Long>();
+		for (Phase phase : Phase.values()) {
+			values.put(phase.name(), recorder(phase).maximum());
+		}
+		return values;
+	}
+
+	@Override
+	public Map<String, Long> getCounters() {
+		Map<String, Long> values = new LinkedHashMap<String, Long>();
+		for (Counter counter : Counter.values()) {
+			values.put(counter.name(), counters[counter.ordinal()].sum());
+		}
+		return values;
+	}
+
+	@Override
+	public Map<String, Long> getHandledPackets() {
+		return opcodes(handled);
+	}
+
+	@Override
+	public Map<String, Long> getDroppedPackets() {
+		return opcodes(dropped);
+	}
+
+	@Override
+	public String getSummary() {
+		return summary();
+	}
+
+	@Override
+	public void reset() {
+		for (LatencyRecorder recorder : recorders) {
+			recorder.reset();
+		}
+		for (LongAdder counter : counters) {
+			counter.reset();
+		}
+		for (int i = 0; i < handled.length; i++) {
+			handled[i].reset();
+			dropped[i].reset();
+		}
+	}
+
+	private static Map<String, Long> percentiles(double percentile) {
+		Map<String, Long> values = new LinkedHashMap<String, Long>();
+		for (Phase phase : Phase.values()) {
+			values.put(phase.name(), recorder(phase).percentile(percentile));
+		}
+		return values;
+	}
+
+	/**
+	 * Lists the opcodes with a non zero count.
+	 */
+	private static Map<String, Long> opcodes(LongAdder[] adders) {
+		Map<String, Long> values = new LinkedHashMap<String, Long>();
+		for (int i = 0; i < adders.length; i++) {
+			long sum = adders[i].sum();
+			if (sum > 0) {
+				values.put(String.valueOf(i), sum);
+			}
+		}
+		return values;
+	}
+
+	private Metrics() {
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the server metrics, registered as
+ * {@code org.solace:type=Metrics}. Latencies are in microseconds.
+ *
+ * @author Faris
+ */
+public interface MetricsMXBean {
+
+	/**
+	 * @return the median latency of each phase
+	 */
+	Map<String, Long> getMedianLatencies();
+
+	/**
+	 * @return the 99th percentile latency of each phase
+	 */
+	Map<String, Long> getP99Latencies();
+
+	/**
+	 * @return the largest latency of each phase
+	 */
+	Map<String, Long> getMaximumLatencies();
+
+	/**
+	 * @return the value of each counter
+	 */
+	Map<String, Long> getCounters();
+
+	/**
+	 * @return the number of incoming packets handled, by opcode
+	 */
+	Map<String, Long> getHandledPackets();
+
+	/**
+	 * @return the number of incoming packets dropped, by opcode
+	 */
+	Map<String, Long> getDroppedPackets();
+
+	/**
+	 * @return the printable summary also written to the log
+	 */
+	String getSummary();
+
+	/**
+	 * Discards every recorded latency and counter.
+	 */
+	void reset();
+
+}
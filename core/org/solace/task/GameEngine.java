@@ -0,0 +1,249 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.task;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.solace.Server;
+import org.solace.game.Game;
+import org.solace.game.content.minigame.MinigameExecutor;
+import org.solace.game.entity.mobile.npc.NPC;
+import org.solace.game.entity.mobile.player.LoginExecutor;
+import org.solace.game.entity.mobile.player.Player;
+import org.solace.game.entity.mobile.update.MobileUpdateExecutor;
+import org.solace.metrics.Metrics;
+import org.solace.metrics.Metrics.Counter;
+import org.solace.metrics.Metrics.Phase;
+import org.solace.util.Constants;
+import org.solace.util.MobileList;
+
+/**
+ * The game loop. A single thread runs every part of the game cycle in a fixed
+ * order: incoming packets, tasks, events, minigames, player and NPC logic,
+ * client updates, flushing and finally registration. Cycles start on fixed
+ * deadlines counted from the first one, so a slow cycle shortens the wait for
+ * the next rather than pushing every later cycle back.
+ *
+ * @author Faris
+ */
+public final class GameEngine implements Runnable {
+
+    /**
+     * A logger used to report error messages.
+     */
+    private static final Logger logger = Logger.getLogger(GameEngine.class.getName());
+
+    /**
+     * The length of a cycle in nanoseconds.
+     */
+    private static final long CYCLE = TimeUnit.MILLISECONDS.toNanos(Constants.SERVER_CYCLE_RATE);
+
+    /**
+     * The singleton instance.
+     */
+    private static final GameEngine instance = new GameEngine();
+
+    /**
+     * The thread running the game loop.
+     */
+    private final Thread thread = new Thread(this, "GameEngine");
+
+    /**
+     * A flag which indicates if the game loop should keep running.
+     */
+    private volatile boolean running;
+
+    private GameEngine() {
+    }
+
+    /**
+     * @return the game engine
+     */
+    public static GameEngine getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts the game loop, if it is not running already.
+     */
+    public synchronized void start() {
+        if (!running && !thread.isAlive()) {
+            running = true;
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the game loop once the current cycle is over, and waits for it.
+     */
+    public void terminate() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(TimeUnit.NANOSECONDS.toMillis(CYCLE) * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs cycles until terminated. A cycle that runs over lets the next one
+     * start straight away; once the loop falls a whole cycle behind, the
+     * missed cycles are dropped and reported instead of being run back to
+     * back.
+     */
+    @Override
+    public void run() {
+        long deadline = System.nanoTime();
+        while (running) {
+            long start = System.nanoTime();
+            cycle();
+            long end = Metrics.record(Phase.TICK, start);
+            if (end - start > CYCLE) {
+                Metrics.increment(Counter.TICK_OVERRUNS);
+            }
+            deadline += CYCLE;
+            long behind = end - deadline;
+            if (behind >= CYCLE) {
+                logger.warning("Game cycle took " + TimeUnit.NANOSECONDS.toMillis(end - start)
+                        + "ms, skipping " + behind / CYCLE + " cycle(s)");
+                deadline = end;
+            }
+            long wait;
+            while (running && (wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    /**
+     * Runs every phase of a single cycle.
+     */
+    private void cycle() {
+        long time = System.nanoTime();
+        try {
+            handleInbound(time);
+        } catch (Throwable t) {
+            logger.log(Level.SEVERE, "Exception handling incoming packets.", t);
+        }
+        time = Metrics.record(Phase.INBOUND, time);
+
+        TaskExecuter.get().run();
+        time = Metrics.record(Phase.TASKS, time);
+
+        Server.getService().run();
+        time = Metrics.record(Phase.EVENTS, time);
+
+        try {
+            MinigameExecutor.process();
+        } catch (Throwable t) {
+            logger.log(Level.SEVERE, "Exception processing minigames.", t);
+        }
+        time = Metrics.record(Phase.MINIGAMES, time);
+
+        try {
+            time = updateEntities(time);
+
+            /*
+             * Synchronizes players first, then NPCS, on the shared update pool
+             */
+            MobileUpdateExecutor.getInstance().executeUpdates();
+            time = flush(System.nanoTime());
+        } catch (Throwable t) {
+            logger.log(Level.SEVERE, "Exception updating entities.", t);
+            time = System.nanoTime();
+        }
+
+        /*
+         * Finally, register all players waiting to log in and remove those
+         * logged out
+         */
+        try {
+            LoginExecutor.finishLogins();
+            Game.getSingleton().syncCycleRegistrys();
+        } catch (Throwable t) {
+            logger.log(Level.SEVERE, "Exception registering players.", t);
+        }
+        Metrics.record(Phase.REGISTRY, time);
+    }
+
+    /**
+     * Handles the packets each client sent since the last cycle, and logs out
+     * those whose connection dropped or went idle or congested.
+     */
+    private void handleInbound(long time) {
+        MobileList<Player> players = Game.getPlayerRepository();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.at(i);
+            if (player.channelContext().isDisconnected()
+                    || player.channelContext().evictIfStale(time)) {
+                if (!player.isLogoutRequired()) {
+                    Game.getSingleton().deregister(player);
+                }
+                continue;
+            }
+            player.channelContext().handleInbound();
+        }
+    }
+
+    /**
+     * Handles all player content, then all NPC logic (e.g combat and
+     * animations).
+     */
+    private long updateEntities(long time) {
+        MobileList<Player> players = Game.getPlayerRepository();
+        for (int i = 0; i < players.size(); i++) {
+            players.at(i).update();
+        }
+        Metrics.add(Counter.PLAYERS_PROCESSED, players.size());
+        time = Metrics.record(Phase.PLAYER_LOGIC, time);
+
+        MobileList<NPC> npcs = Game.getNpcRepository();
+        for (int i = 0; i < npcs.size(); i++) {
+            try {
+                npcs.at(i).update();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        Metrics.add(Counter.NPCS_PROCESSED, npcs.size());
+        return Metrics.record(Phase.NPC_LOGIC, time);
+    }
+
+    /**
+     * Flushes every queued packet, one gathering write per client.
+     */
+    private long flush(long time) {
+        MobileList<Player> players = Game.getPlayerRepository();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.at(i);
+            try {
+                player.channelContext().flush();
+            } catch (IOException e) {
+                if (!player.isLogoutRequired()) {
+                    Game.getSingleton().deregister(player);
+                }
+            }
+        }
+        return Metrics.record(Phase.FLUSH, time);
+    }
+
+}
@@ -15,7 +15,12 @@
  */
 package org.solace.task;
 
+import org.solace.task.TimingWheel.Timer;
+
 /**
+ * An action run every given number of cycles by the {@link TaskExecuter}
+ * until it is stopped. Tasks are run on the game thread, and may only be
+ * stopped there.
  *
  * @author Faris
  */
@@ -24,7 +29,7 @@ public abstract class Task {
     /**
 	 * The number of cycles between consecutive executions of this task.
 	 */
-	private final int delay;
+	private int delay;
 
 	/**
 	 * A flag which indicates if this task should be executed once immediately.
@@ -32,10 +37,9 @@ public abstract class Task {
 	private final boolean immediate;
 
 	/**
-	 * The current 'count down' value. When this reaches zero the task will be
-	 * executed.
+	 * The timer this task waits on, null until it is started.
 	 */
-	private int countdown;
+	private Timer<Task> timer;
 
 	/**
 	 * A flag which indicates if this task is still running.
@@ -89,7 +93,6 @@ public abstract class Task {
 	public Task(int delay, boolean immediate) {
 		checkDelay(delay);
 		this.delay = delay;
-		this.countdown = delay;
 		this.immediate = immediate;
 	}
 
@@ -121,18 +124,19 @@ public abstract class Task {
 	}
 
 	/**
-	 * This method should be called by the scheduling class every cycle. It
-	 * updates the {@link #countdown} and calls the {@link #execute()} method
-	 * if necessary.
+	 * Gets the number of cycles between consecutive executions of this task.
 	 * 
-	 * @return A flag indicating if the task is running.
+	 * @return The delay.
 	 */
-	public boolean tick() {
-		if (running && --countdown == 0) {
-			execute();
-			countdown = delay;
-		}
-		return running;
+	public int getDelay() {
+		return delay;
+	}
+
+	/**
+	 * Sets the timer this task waits on, once it is started.
+	 */
+	void timer(Timer<Task> timer) {
+		this.timer = timer;
 	}
 
 	/**
@@ -141,7 +145,7 @@ public abstract class Task {
 	public abstract void execute();
 
 	/**
-	 * Changes the delay of this task.
+	 * Changes the delay of this task, from its next execution.
 	 * 
 	 * @param delay
 	 *            The number of cycles between consecutive executions of this
@@ -151,11 +155,11 @@ public abstract class Task {
 	 */
 	public void setDelay(int delay) {
 		checkDelay(delay);
-		delay = 0;
+		this.delay = delay;
 	}
 
 	/**
-	 * Stops this task.
+	 * Stops this task, taking it off the wheel.
 	 * 
 	 * @throws IllegalStateException
 	 *             if the task has already been stopped.
@@ -163,6 +167,8 @@ public abstract class Task {
 	public void stop() {
 		checkStopped();
 		running = false;
+		if (timer != null)
+			timer.cancel();
 	}
 
 	/**
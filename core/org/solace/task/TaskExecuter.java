@@ -16,18 +16,15 @@
 package org.solace.task;
 
 import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.solace.task.TimingWheel.Timer;
 
 /**
- * A class which schedules the execution of {@link Task}s.
+ * A class which schedules the execution of {@link Task}s. The tasks wait on a
+ * {@link TimingWheel} advanced once a cycle by the {@link GameEngine}, so
+ * only the tasks due are touched.
  * 
  * @author Graham
  */
@@ -39,20 +36,9 @@ public final class TaskExecuter implements Runnable {
 	private static final Logger logger = Logger.getLogger(TaskExecuter.class.getName());
 
 	/**
-	 * The time period, in milliseconds, of a single cycle.
+	 * The wheel the active tasks wait on.
 	 */
-	private static final int TIME_PERIOD = 600;
-
-	/**
-	 * The {@link ScheduledExecutorService} which schedules calls to the
-	 * {@link #run()} method.
-	 */
-	private final ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
-
-	/**
-	 * A list of active tasks.
-	 */
-	private final List<Task> tasks = new ArrayList<Task>();
+	private final TimingWheel<Task> wheel = new TimingWheel<Task>();
 
 	/**
 	 * A queue of tasks that still need to be added.
@@ -60,73 +46,84 @@ public final class TaskExecuter implements Runnable {
 	private final Queue<Task> newTasks = new ArrayDeque<Task>();
 
 	/**
-	 * Creates and starts the task scheduler.
+	 * The singleton instance.
 	 */
-	public TaskExecuter() {
-		service.scheduleAtFixedRate(this, 0, TIME_PERIOD, TimeUnit.MILLISECONDS);
-	}
+	private static final TaskExecuter singleton = new TaskExecuter();
 
-	/**
-	 * Stops the task scheduler.
-	 */
-	public void terminate() {
-		service.shutdown();
+	private TaskExecuter() {
 	}
 
 	/**
-	 * Schedules the specified task. If this scheduler has been stopped with
-	 * the {@link #terminate()} method the task will not be executed or
-	 * garbage-collected.
+	 * Schedules the specified task, from any thread. It starts on the next
+	 * cycle, immediate tasks being executed once as they start.
 	 * 
 	 * @param task
 	 *            The task to schedule.
 	 */
-	public void schedule(final Task task) {
-		if (task.isImmediate()) {
-			service.execute(new Runnable() {
-				@Override
-				public void run() {
-					task.execute();
-				}
-			});
-		}
-
+	public void schedule(Task task) {
 		synchronized (newTasks) {
 			newTasks.add(task);
 		}
 	}
 
 	/**
-	 * This method is automatically called every cycle by the
-	 * {@link ScheduledExecutorService} and executes, adds and removes
-	 * {@link Task}s. It should not be called directly as this will lead to
-	 * concurrency issues and inaccurate time-keeping.
+	 * This method is called every cycle by the {@link GameEngine} and
+	 * executes, adds and removes {@link Task}s. It should not be called
+	 * directly as this will lead to concurrency issues and inaccurate
+	 * time-keeping.
 	 */
 	@Override
 	public void run() {
+		wheel.advance();
 		synchronized (newTasks) {
 			Task task;
 			while ((task = newTasks.poll()) != null)
-				tasks.add(task);
+				start(task);
 		}
 
-		for (Iterator<Task> it = tasks.iterator(); it.hasNext();) {
-			Task task = it.next();
-			try {
-				if (!task.tick())
-					it.remove();
-			} catch (Throwable t) {
-				logger.log(Level.SEVERE, "Exception during task execution.", t);
-			}
+		Timer<Task> timer;
+		while ((timer = wheel.poll()) != null) {
+			Task task = timer.target();
+			execute(task);
+			if (task.isRunning())
+				wheel.reschedule(timer, task.getDelay());
 		}
 	}
 
-	private static TaskExecuter singleton;
+	/**
+	 * Puts a new task on the wheel. A task is first due once its delay has
+	 * passed, counting this cycle, or a whole delay after its immediate
+	 * execution.
+	 */
+	private void start(Task task) {
+		if (task.isStopped())
+			return;
+		int delay = task.getDelay() - 1;
+		if (task.isImmediate()) {
+			execute(task);
+			if (task.isStopped())
+				return;
+			delay++;
+		}
+		task.timer(wheel.schedule(task, delay));
+	}
 
-	public static TaskExecuter get() {
-		if (singleton == null) {
-			singleton = new TaskExecuter();
+	private void execute(Task task) {
+		try {
+			task.execute();
+		} catch (Throwable t) {
+			logger.log(Level.SEVERE, "Exception during task execution.", t);
 		}
+	}
+
+	/**
+	 * @return a printable summary of the tasks run by type
+	 */
+	public String statistics() {
+		return wheel.statistics("Task");
+	}
+
+	public static TaskExecuter get() {
 		return singleton;
 	}
 
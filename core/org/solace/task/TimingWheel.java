@@ -0,0 +1,270 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.task;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A hierarchical timing wheel counting in game cycles. Timers are kept in
+ * linked slots, the lowest wheel holding one slot per cycle of the next 64
+ * and each wheel above covering 64 times the span of the one below. Each
+ * cycle only the slot of that cycle is visited, and once every 64 cycles the
+ * next slot of the wheel above is spread out over the one below. Scheduling
+ * and cancelling a timer never touch any other timer.
+ * <p>
+ * Not thread safe, a wheel belongs to the game thread.
+ *
+ * @author Faris
+ */
+public final class TimingWheel<T> {
+
+    /**
+     * The bits of a cycle each wheel is indexed by.
+     */
+    private static final int WHEEL_BITS = 6;
+
+    /**
+     * The number of slots in each wheel.
+     */
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /**
+     * The number of wheels, spanning 2^24 cycles. Timers due later are put in
+     * the top wheel's furthest slot and placed again as it comes round.
+     */
+    private static final int WHEELS = 4;
+
+    /**
+     * The slots of every wheel, each the head of a circular list.
+     */
+    private final Timer<T>[][] wheels;
+
+    /**
+     * The timers due this cycle and not yet polled.
+     */
+    private final Timer<T> expired = new Timer<T>(null, null);
+
+    /**
+     * The counts of timers scheduled, expired and cancelled by type.
+     */
+    private final Map<Class<?>, long[]> statistics = new HashMap<Class<?>, long[]>();
+
+    /**
+     * The current cycle.
+     */
+    private long now;
+
+    public TimingWheel() {
+        // generic arrays cannot be created, every slot is filled below
+        @SuppressWarnings("unchecked")
+        Timer<T>[][] wheels = (Timer<T>[][]) new Timer<?>[WHEELS][WHEEL_SIZE];
+        this.wheels = wheels;
+        for (Timer<T>[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = new Timer<T>(null, null);
+            }
+        }
+    }
+
+    /**
+     * Schedules a new timer.
+     *
+     * @param target the object the timer is for
+     * @param delay the cycles until the timer is due, 0 for this cycle
+     * @return the timer, which may be cancelled
+     */
+    public Timer<T> schedule(T target, int delay) {
+        Timer<T> timer = new Timer<T>(this, target);
+        count(target, 0);
+        reschedule(timer, delay);
+        return timer;
+    }
+
+    /**
+     * Schedules a timer again, once it expired or to move it.
+     *
+     * @param timer the timer
+     * @param delay the cycles until the timer is due, 0 for this cycle
+     */
+    public void reschedule(Timer<T> timer, int delay) {
+        timer.unlink();
+        timer.deadline = now + Math.max(delay, 0);
+        place(timer);
+    }
+
+    /**
+     * Moves on to the next cycle, spreading out the slots of the upper wheels
+     * that have come round and collecting the timers now due.
+     */
+    public void advance() {
+        now++;
+        for (int wheel = WHEELS - 1; wheel > 0; wheel--) {
+            if ((now & (1L << wheel * WHEEL_BITS) - 1) == 0) {
+                Timer<T> slot = wheels[wheel][index(now, wheel)];
+                Timer<T> timer;
+                while ((timer = slot.next) != slot) {
+                    timer.unlink();
+                    place(timer);
+                }
+            }
+        }
+        Timer<T> slot = wheels[0][index(now, 0)];
+        if (slot.next != slot) {
+            expired.splice(slot);
+        }
+    }
+
+    /**
+     * Takes the next timer due this cycle, including those scheduled this
+     * cycle with no delay.
+     *
+     * @return the timer, or null once there are none left
+     */
+    public Timer<T> poll() {
+        Timer<T> timer = expired.next;
+        if (timer == expired) {
+            return null;
+        }
+        timer.unlink();
+        count(timer.target, 1);
+        return timer;
+    }
+
+    /**
+     * Puts a timer in the slot of its deadline, in the lowest wheel that
+     * reaches it.
+     */
+    private void place(Timer<T> timer) {
+        long deadline = timer.deadline;
+        if (deadline <= now) {
+            expired.append(timer);
+            return;
+        }
+        for (int wheel = 0; wheel < WHEELS; wheel++) {
+            int shift = wheel * WHEEL_BITS;
+            if ((deadline >>> shift) - (now >>> shift) < WHEEL_SIZE) {
+                wheels[wheel][index(deadline, wheel)].append(timer);
+                return;
+            }
+        }
+        /*
+         * Too far off for the top wheel, parked in the slot it reaches last
+         */
+        wheels[WHEELS - 1][(index(now, WHEELS - 1) - 1) & WHEEL_MASK].append(timer);
+    }
+
+    private static int index(long cycle, int wheel) {
+        return (int) (cycle >>> wheel * WHEEL_BITS) & WHEEL_MASK;
+    }
+
+    private void count(Object target, int statistic) {
+        Class<?> type = target.getClass();
+        long[] counts = statistics.get(type);
+        if (counts == null) {
+            statistics.put(type, counts = new long[3]);
+        }
+        counts[statistic]++;
+    }
+
+    /**
+     * Gets a printable summary of the timers scheduled, expired and cancelled
+     * by type since the server started.
+     *
+     * @param name the name of the wheel
+     * @return the summary
+     */
+    public String statistics(String name) {
+        StringBuilder builder = new StringBuilder(name).append(" timers (scheduled/expired/cancelled):");
+        for (Map.Entry<Class<?>, long[]> entry : statistics.entrySet()) {
+            long[] counts = entry.getValue();
+            builder.append(' ').append(entry.getKey().getName()).append('=')
+                    .append(counts[0]).append('/').append(counts[1]).append('/')
+                    .append(counts[2]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A timer scheduled on a wheel, also the handle to cancel it with.
+     */
+    public static final class Timer<T> {
+
+        private final TimingWheel<T> wheel;
+        private final T target;
+        private long deadline;
+        private Timer<T> previous = this, next = this;
+
+        private Timer(TimingWheel<T> wheel, T target) {
+            this.wheel = wheel;
+            this.target = target;
+        }
+
+        /**
+         * @return the object the timer is for
+         */
+        public T target() {
+            return target;
+        }
+
+        /**
+         * @return true if the timer is waiting to be due
+         */
+        public boolean isScheduled() {
+            return next != this;
+        }
+
+        /**
+         * Removes the timer from its wheel so it never becomes due. Must only
+         * be called on the game thread.
+         */
+        public void cancel() {
+            if (isScheduled()) {
+                unlink();
+                wheel.count(target, 2);
+            }
+        }
+
+        private void append(Timer<T> timer) {
+            timer.previous = previous;
+            timer.next = this;
+            previous.next = timer;
+            previous = timer;
+        }
+
+        /**
+         * Moves every timer of another list to the end of this one.
+         */
+        private void splice(Timer<T> list) {
+            Timer<T> first = list.next, last = list.previous;
+            first.previous = previous;
+            previous.next = first;
+            last.next = this;
+            previous = last;
+            list.next = list.previous = list;
+        }
+
+        private void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = next = this;
+        }
+
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.task.impl;
+
+import org.solace.Server;
+import org.solace.event.events.PlayerSaveEvent;
+import org.solace.game.Game;
+import org.solace.game.entity.mobile.player.Player;
+import org.solace.task.Task;
+import org.solace.util.Constants;
+import org.solace.util.MobileList;
+
+/**
+ * Saves every player once per {@link Constants#AUTOSAVE_CYCLES}, a slice of
+ * the players each cycle so the saves are spread evenly. Saves of players who
+ * have not changed are skipped by the save executor.
+ * 
+ * @author Faris
+ */
+public class AutosaveTask extends Task {
+
+	private int cycle;
+
+	public AutosaveTask() {
+		super(1);
+	}
+
+	public void execute() {
+		MobileList<Player> players = Game.getPlayerRepository();
+		for (int i = cycle; i < players.size(); i += Constants.AUTOSAVE_CYCLES) {
+			Player player = players.at(i);
+			if (!player.isLogoutRequired()) {
+				Server.getEventManager().dispatchEvent(new PlayerSaveEvent(player));
+			}
+		}
+		cycle = (cycle + 1) % Constants.AUTOSAVE_CYCLES;
+	}
+
+}
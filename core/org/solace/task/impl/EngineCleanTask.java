@@ -16,12 +16,16 @@
 package org.solace.task.impl;
 
 import org.solace.Server;
+import org.solace.metrics.Metrics;
+import org.solace.network.packet.BufferPool;
 import org.solace.task.Task;
+import org.solace.task.TaskExecuter;
 
 /**
- * Some may not see this as necessary but after some testing it has proven
- * positively influence memory management to request GC sooner than the JVM self
- * cleans
+ * Periodically reports how the packet buffer pool is holding up, along with
+ * the cycle metrics and the timers run. Outgoing packets borrow pooled direct
+ * buffers, so the steady state update cycle no longer relies on forcing a GC
+ * to reclaim direct memory.
  * 
  * @author Faris
  */
@@ -29,15 +33,13 @@ public class EngineCleanTask extends Task {
 	
 	public EngineCleanTask() {
 		super(500);
-		System.gc();
-		System.runFinalization();
-		Server.logger.info("System resource cleanup scheduled...");
 	}
 
 	public void execute() {
-		System.gc();
-		System.runFinalization();
-		Server.logger.info("System resource cleanup scheduled...");
+		Server.logger.info(BufferPool.statistics());
+		Server.logger.info(Metrics.summary());
+		Server.logger.info(TaskExecuter.get().statistics());
+		Server.logger.info(Server.getService().statistics());
 	}
 
 }
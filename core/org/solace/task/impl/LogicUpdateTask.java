@@ -15,7 +15,6 @@
  */
 package org.solace.task.impl;
 
-import org.solace.game.content.minigame.MinigameExecutor;
 import org.solace.game.entity.ground.GroundItemHandler;
 import org.solace.task.Task;
 
@@ -24,11 +23,6 @@ import org.solace.task.Task;
  * @author Faris
  */
 public class LogicUpdateTask extends Task {
-    
-    public LogicUpdateTask(){
-        Thread minigameExecutor = new MinigameExecutor();
-        minigameExecutor.start();
-    }
 
 	@Override
 	public void execute() {
@@ -18,7 +18,11 @@ package org.solace.task.impl;
 import org.solace.Server;
 import org.solace.event.events.PlayerSaveEvent;
 import org.solace.game.Game;
+import org.solace.game.entity.mobile.player.LoginExecutor;
 import org.solace.game.entity.mobile.player.Player;
+import org.solace.game.entity.mobile.player.SaveExecutor;
+import org.solace.game.entity.mobile.update.MobileUpdateExecutor;
+import org.solace.task.GameEngine;
 
 /**
  *
@@ -29,12 +33,17 @@ public class ShutdownExecutionTask extends Thread {
     @Override
     public void run(){
         Server.logger.warning("Server unexpected shutdown, hook executed");
-        for(Player player : Game.getPlayerRepository().values()){
+        GameEngine.getInstance().terminate();
+        LoginExecutor.terminate();
+        for(Player player : Game.getPlayerRepository()){
             if (player == null){
                 continue;
             }
             Server.getEventManager().dispatchEvent(new PlayerSaveEvent(player));
         }
+        Server.getEventManager().terminate();
+        SaveExecutor.terminate();
+        MobileUpdateExecutor.getInstance().terminate();
     }
 
 }
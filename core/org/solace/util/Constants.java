@@ -41,4 +41,69 @@ public class Constants {
     
     public static final boolean SERVER_DEBUG_MODE = true;
 
+    /**
+     * Number of network reactor threads, set with -Dsolace.selectors
+     */
+    public static final int NETWORK_SELECTOR_THREADS = Integer.getInteger("solace.selectors",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+    /**
+     * Number of threads loading save files for logins, set with -Dsolace.loginWorkers
+     */
+    public static final int LOGIN_WORKER_THREADS = Integer.getInteger("solace.loginWorkers",
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Logins which may wait for a worker before further ones are refused
+     */
+    public static final int LOGIN_QUEUE_CAPACITY = 512;
+
+    /**
+     * What becomes of packets sent faster than their opcode allows: drop,
+     * defer or disconnect, set with -Dsolace.floodPolicy
+     */
+    public static final String INBOUND_FLOOD_POLICY = System.getProperty("solace.floodPolicy", "drop");
+
+    /**
+     * Packets of one session handled per cycle, the rest wait for the next
+     * cycle, set with -Dsolace.packetsPerCycle
+     */
+    public static final int INBOUND_PACKETS_PER_CYCLE = Integer.getInteger("solace.packetsPerCycle", 50);
+
+    /**
+     * Cycles a session may go without sending anything before it is
+     * disconnected, set with -Dsolace.idleCycles
+     */
+    public static final int SESSION_IDLE_CYCLES = Integer.getInteger("solace.idleCycles", 100);
+
+    /**
+     * Unsent bytes above which a session counts as congested, and below which
+     * it stops counting as congested, set with -Dsolace.outboundHigh and
+     * -Dsolace.outboundLow
+     */
+    public static final int OUTBOUND_HIGH_WATERMARK = Integer.getInteger("solace.outboundHigh", 256 * 1024),
+            OUTBOUND_LOW_WATERMARK = Integer.getInteger("solace.outboundLow", 64 * 1024);
+
+    /**
+     * Cycles a session may stay congested before it is disconnected
+     */
+    public static final int OUTBOUND_CONGESTED_CYCLES = 10;
+
+    /**
+     * Unsent bytes at which a session is disconnected straight away, set
+     * with -Dsolace.outboundLimit
+     */
+    public static final int OUTBOUND_LIMIT = Integer.getInteger("solace.outboundLimit", 1024 * 1024);
+
+    /**
+     * Saves waiting to be written before saving blocks, set with
+     * -Dsolace.saveQueue
+     */
+    public static final int SAVE_QUEUE_CAPACITY = Integer.getInteger("solace.saveQueue", 4096);
+
+    /**
+     * Cycles between two autosaves of a player, set with -Dsolace.autosaveCycles
+     */
+    public static final int AUTOSAVE_CYCLES = Integer.getInteger("solace.autosaveCycles", 500);
+
 }
@@ -15,61 +15,93 @@
  */
 package org.solace.util;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
+ * Hands out the indices of one repository, kept as a stack of the free ones
+ * so taking and freeing an index never has to search. Any thread may take or
+ * free an index; the top of the stack is swapped in atomically along with a
+ * count of the swaps, so an index freed and taken again in between is never
+ * mistaken for the one read. Index 0 is never handed out.
  *
  * @author Faris
  */
 public class IndexManager {
-    
+
+    /**
+     * The index below each free index on the stack, 0 ending the stack.
+     */
+    private final int[] next;
+
     /**
-     * Stores index keys, anything nulled is an available index
+     * The number of swaps in the high half, the free index on top in the low
+     * half.
      */
-    public static Integer indexStore [] = new Integer[Constants.SERVER_MAX_PLAYERS];
-    
-    private static Integer[] npcIndexStore = new Integer[Constants.SERVER_MAX_NPCS];
-    
+    private final AtomicLong top;
+
+    /**
+     * The number of free indices.
+     */
+    private final AtomicInteger available;
+
     /**
-     * Sets the parsed index to null for recycling
-     * @param index players old index
+     * Creates an index manager handing out the indices 1 to capacity, lowest
+     * first.
+     *
+     * @param capacity the highest index
      */
-    public static void freeIndex(int index){
-        indexStore[index] = null;
+    public IndexManager(int capacity) {
+        next = new int[capacity + 1];
+        for (int i = 1; i < capacity; i++) {
+            next[i] = i + 1;
+        }
+        top = new AtomicLong(capacity > 0 ? 1 : 0);
+        available = new AtomicInteger(capacity);
     }
-    
+
     /**
-     * Sets the parsed index to null for recycling
-     * @param index NPCs old index
+     * Takes the most recently freed index, or the lowest if none was freed
+     * @return the index, or -1 if all are taken
      */
-    public static void freeNpcIndex(int index) {
-    	npcIndexStore[index] = null;
+    public int getIndex() {
+        for (;;) {
+            long top = this.top.get();
+            int index = (int) top;
+            if (index == 0) {
+                return -1;
+            }
+            if (this.top.compareAndSet(top, swap(top, next[index]))) {
+                available.decrementAndGet();
+                return index;
+            }
+        }
     }
-    
+
     /**
-     * Loops through available index
-     * @returns first unassigned index
+     * Puts an index back for recycling
+     * @param index the index, no longer in use
      */
-    public static Integer getIndex(){
-        for(int i=1; i<indexStore.length; i++){
-            if(indexStore[i] == null){
-                indexStore[i] = i;
-                return indexStore[i];
+    public void freeIndex(int index) {
+        for (;;) {
+            long top = this.top.get();
+            next[index] = (int) top;
+            if (this.top.compareAndSet(top, swap(top, index))) {
+                available.incrementAndGet();
+                return;
             }
         }
-        return null;
     }
-    
+
     /**
-     * Loops through available index
-     * @returns first unassigned index
+     * @return the number of indices that can still be handed out
      */
-    public static Integer getNpcIndex() {
-    	for (int i = 1; i < npcIndexStore.length; i++) {
-    		if (npcIndexStore[i] == null) {
-    			npcIndexStore[i] = i;
-    			return npcIndexStore[i];
-    		}
-    	}
-    	return null;
+    public int available() {
+        return available.get();
+    }
+
+    private static long swap(long top, int index) {
+        return ((top >>> 32) + 1 << 32) | index;
     }
 
 }
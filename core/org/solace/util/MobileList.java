@@ -15,17 +15,219 @@
  */
 package org.solace.util;
 
-import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import org.solace.game.entity.mobile.Mobile;
 
 /**
- * Container for a new type of list exclusive to Clients to prevent
- * mixing up different types of elements in the team event list
- * 
+ * Repository of registered mobiles, addressed by their index. Each mobile
+ * sits in the slot of its index and in a dense array kept in no particular
+ * order, so adding, removing and looking up a mobile are constant time and
+ * iterating touches only the mobiles that are there.
+ * <p>
+ * Loops run every cycle should iterate by position with {@link #size()} and
+ * {@link #at(int)}, which allocates nothing. Indices may be reserved from
+ * any thread, but the list itself may only change on the game thread and
+ * never while it is being iterated.
+ *
  * @author Faris
  */
-public class MobileList<E extends Mobile> extends ArrayList<E> {
+public class MobileList<T extends Mobile> implements Iterable<T> {
+
+	/**
+	 * The mobiles by index, slot 0 never being used.
+	 */
+	private final Mobile[] slots;
+
+	/**
+	 * The mobiles packed at the front, in no particular order.
+	 */
+	private final Mobile[] mobiles;
+
+	/**
+	 * The position of each index in the packed mobiles.
+	 */
+	private final int[] positions;
+
+	/**
+	 * The free indices.
+	 */
+	private final IndexManager indices;
+
+	private int size;
+
+	/**
+	 * Creates an empty list.
+	 *
+	 * @param capacity
+	 *            the highest index, also the most mobiles the list holds
+	 */
+	public MobileList(int capacity) {
+		slots = new Mobile[capacity + 1];
+		mobiles = new Mobile[capacity];
+		positions = new int[capacity + 1];
+		indices = new IndexManager(capacity);
+	}
+
+	/**
+	 * Takes a free index for a mobile that is added later with
+	 * {@link #add(Mobile)}, or handed back with {@link #release(int)}. Safe
+	 * from any thread.
+	 *
+	 * @return the index, or -1 if the list is full
+	 */
+	public int reserve() {
+		return indices.getIndex();
+	}
+
+	/**
+	 * Hands back an index taken with {@link #reserve()} which never got a
+	 * mobile.
+	 *
+	 * @param index
+	 *            the index
+	 */
+	public void release(int index) {
+		if (slots[index] == null) {
+			indices.freeIndex(index);
+		}
+	}
+
+	/**
+	 * Adds a mobile, giving it an index first unless it already reserved one.
+	 *
+	 * @param mobile
+	 *            the mobile
+	 *
+	 * @return true if added, false if the list is full or the mobile's index
+	 *         is taken
+	 */
+	public boolean add(T mobile) {
+		int index = mobile.getIndex();
+		if (index <= 0 || index >= slots.length) {
+			index = reserve();
+			if (index == -1) {
+				return false;
+			}
+			mobile.setIndex(index);
+		} else if (slots[index] != null) {
+			return false;
+		}
+		slots[index] = mobile;
+		positions[index] = size;
+		mobiles[size++] = mobile;
+		return true;
+	}
+
+	/**
+	 * Removes a mobile and frees its index, moving the last mobile into its
+	 * position.
+	 *
+	 * @param mobile
+	 *            the mobile
+	 *
+	 * @return true if it was in the list
+	 */
+	public boolean remove(T mobile) {
+		if (!contains(mobile)) {
+			return false;
+		}
+		int index = mobile.getIndex();
+		int position = positions[index];
+		Mobile last = mobiles[--size];
+		mobiles[position] = last;
+		positions[last.getIndex()] = position;
+		mobiles[size] = null;
+		slots[index] = null;
+		indices.freeIndex(index);
+		return true;
+	}
+
+	/**
+	 * Gets the mobile holding an index.
+	 *
+	 * @param index
+	 *            the index, which may be out of range
+	 *
+	 * @return the mobile, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		if (index <= 0 || index >= slots.length) {
+			return null;
+		}
+		return (T) slots[index];
+	}
+
+	/**
+	 * Checks if a mobile is in the list, by its index.
+	 *
+	 * @param mobile
+	 *            the mobile
+	 *
+	 * @return true if the mobile holds its index in the list
+	 */
+	public boolean contains(T mobile) {
+		return get(mobile.getIndex()) == mobile;
+	}
+
+	/**
+	 * Gets the mobile at a position of the packed mobiles.
+	 *
+	 * @param position
+	 *            the position, below {@link #size()}
+	 *
+	 * @return the mobile
+	 */
+	@SuppressWarnings("unchecked")
+	public T at(int position) {
+		return (T) mobiles[position];
+	}
+
+	/**
+	 * @return the number of mobiles in the list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of indices not yet reserved or taken
+	 */
+	public int available() {
+		return indices.available();
+	}
+
+	/**
+	 * @return the most mobiles the list holds
+	 */
+	public int capacity() {
+		return mobiles.length;
+	}
+
+	/**
+	 * Gets an iterator over the mobiles, for code not run every cycle.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+
+			private int position;
+
+			@Override
+			public boolean hasNext() {
+				return position < size;
+			}
+
+			@Override
+			public T next() {
+				if (position >= size) {
+					throw new NoSuchElementException();
+				}
+				return at(position++);
+			}
+
+		};
+	}
 
-    // ALLOW USAGE OF A LIST WITH EXCLUSIVITY TO Client TYPES ONLY
-    
-}
\ No newline at end of file
+}
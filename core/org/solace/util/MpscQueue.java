@@ -0,0 +1,85 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unbounded lock-free queue any number of threads may offer to and a single
+ * thread polls. Offering is one atomic swap of the last node, polling only
+ * follows links, so neither side ever waits on the other.
+ * <p>
+ * An element whose offer has not finished linking it yet is not seen by the
+ * poller, which then stops early and picks it up on its next poll.
+ *
+ * @author Faris
+ */
+public class MpscQueue<E> {
+
+    private static final class Node<E> {
+
+        private E element;
+        private volatile Node<E> next;
+
+        private Node(E element) {
+            this.element = element;
+        }
+
+    }
+
+    /**
+     * The node offered last, swapped by the offering threads.
+     */
+    private final AtomicReference<Node<E>> last;
+
+    /**
+     * The node polled last, its element already taken. Owned by the poller.
+     */
+    private Node<E> first;
+
+    public MpscQueue() {
+        first = new Node<E>(null);
+        last = new AtomicReference<Node<E>>(first);
+    }
+
+    /**
+     * Adds an element to the end of the queue, from any thread.
+     *
+     * @param element the element, not null
+     */
+    public void offer(E element) {
+        Node<E> node = new Node<E>(element);
+        last.getAndSet(node).next = node;
+    }
+
+    /**
+     * Takes the element at the front of the queue. Must only be called from
+     * the one polling thread.
+     *
+     * @return the element, or null if there is none
+     */
+    public E poll() {
+        Node<E> node = first.next;
+        if (node == null) {
+            return null;
+        }
+        E element = node.element;
+        node.element = null;
+        first = node;
+        return element;
+    }
+
+}
@@ -15,20 +15,20 @@
  */
 package org.solace.game;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import org.solace.game.entity.mobile.Mobile;
+import java.util.concurrent.ConcurrentHashMap;
 import org.solace.game.entity.mobile.npc.NPC;
 import org.solace.game.entity.mobile.player.Player;
+import org.solace.game.map.ChunkGrid;
+import org.solace.task.GameEngine;
 import org.solace.task.Task;
 import org.solace.task.TaskExecuter;
+import org.solace.task.impl.AutosaveTask;
 import org.solace.task.impl.EngineCleanTask;
-import org.solace.task.impl.EntityUpdateTask;
 import org.solace.task.impl.LogicUpdateTask;
 import org.solace.util.Constants;
-import org.solace.util.IndexManager;
+import org.solace.util.MobileList;
+import org.solace.util.MpscQueue;
 
 /**
  *
@@ -37,16 +37,27 @@ import org.solace.util.IndexManager;
 public class Game {
 
     /**
-     * Lists containing all registered mobile entities
+     * Lists containing all registered mobile entities, addressed by index
      */
-    private static Map<Integer, Player> playerRepository = new HashMap<Integer, Player>();
-    private static Map<Integer, NPC> npcRepository = new HashMap<Integer, NPC>();
-    private static List<Mobile> mobileRepository = new LinkedList<Mobile>();
+    private static MobileList<Player> playerRepository = new MobileList<Player>(Constants.SERVER_MAX_PLAYERS);
+    private static MobileList<NPC> npcRepository = new MobileList<NPC>(Constants.SERVER_MAX_NPCS);
 
     /**
-     * List containing all players in queue waiting to be registered to game
+     * Spatial indexes of all registered players and NPCs
      */
-    public static LinkedList<Player> registryQueue = new LinkedList<Player>();
+    private static ChunkGrid<Player> playerGrid = new ChunkGrid<Player>();
+    private static ChunkGrid<NPC> npcGrid = new ChunkGrid<NPC>();
+
+    /**
+     * Registered players keyed by their username as a long
+     */
+    private static Map<Long, Player> playersByName = new ConcurrentHashMap<Long, Player>();
+
+    /**
+     * Players waiting to be registered to or removed from the game, offered
+     * from any thread and drained once a cycle by {@link #syncCycleRegistrys()}
+     */
+    private static MpscQueue<Registration> registryQueue = new MpscQueue<Registration>();
     
 
     /**
@@ -55,12 +66,13 @@ public class Game {
     public static final Game game = new Game();
 
     /**
-     * Initializes the game loop handles
+     * Schedules the recurring game tasks and starts the game loop
      */
     public static void submitTasks() throws InterruptedException {
-        TaskExecuter.get().schedule(new EntityUpdateTask());
         TaskExecuter.get().schedule(new EngineCleanTask());
+        TaskExecuter.get().schedule(new AutosaveTask());
         TaskExecuter.get().schedule(new LogicUpdateTask());
+        GameEngine.getInstance().start();
     }
 
     /**
@@ -75,80 +87,133 @@ public class Game {
     /**
      * @return the playerRepository
      */
-    public static Map<Integer, Player> getPlayerRepository() {
+    public static MobileList<Player> getPlayerRepository() {
         return playerRepository;
     }
 
+    /**
+     * Checks if a player is still registered, by looking up its index rather
+     * than searching the repository.
+     *
+     * @param player the player
+     * @return true if the player holds its index in the repository
+     */
+    public static boolean isRegistered(Player player) {
+        return playerRepository.contains(player);
+    }
+
     /**
      * @return the npcRepository
      */
-    public static Map<Integer, NPC> getNpcRepository() {
+    public static MobileList<NPC> getNpcRepository() {
         return npcRepository;
     }
 
     /**
-     * @return the mobileRepository
+     * @return the spatial index of registered players
+     */
+    public static ChunkGrid<Player> getPlayerGrid() {
+        return playerGrid;
+    }
+
+    /**
+     * @return the spatial index of registered NPCs
      */
-    public static List<Mobile> getMobileRepository() {
-        return mobileRepository;
+    public static ChunkGrid<NPC> getNpcGrid() {
+        return npcGrid;
     }
 
     /**
-     * Removes a player and logs them out of the game
+     * Finds a registered player by their username
+     *
+     * @param name the username as a long
+     * @return the player, or null if they are not online
+     */
+    public static Player getPlayerByName(long name) {
+        return playersByName.get(name);
+    }
+
+    /**
+     * @return the number of players online or logging in
+     */
+    public static int getPlayerCount() {
+        return Constants.SERVER_MAX_PLAYERS - playerRepository.available();
+    }
+
+    /**
+     * Removes a player and logs them out of the game. Safe from any thread,
+     * the player is removed at the end of the cycle
      *
      * @param player
      */
     public void deregister(Player player) {
         player.setLogoutRequired(true);
-        registryQueue.add(player);
+        registryQueue.offer(new Registration(player, false));
     }
 
     /**
-     * Synchronises the registry queue with the real game repository and clears
-     * the registry after
+     * Synchronises the registry queue with the real game repository. Must only
+     * be called from the game cycle, once all players have been updated
      */
     public void syncCycleRegistrys() {
-        if (registryQueue.isEmpty()) {
-            return;
-        }
-        LinkedList<Player> queue = (LinkedList) registryQueue.clone();
-        for (Player player : queue) {
-            if (player.isLogoutRequired()) {
+        Registration registration;
+        while ((registration = registryQueue.poll()) != null) {
+            Player player = registration.player;
+            if (registration.register) {
+                /*
+                 * A player removed before they were registered only gives
+                 * their index back
+                 */
+                if (player.isLogoutRequired()) {
+                    getPlayerRepository().release(player.getIndex());
+                    continue;
+                }
+                getPlayerRepository().add(player);
+                getPlayerGrid().add(player);
+                playersByName.put(player.getAuthentication().getUsernameAsLong(), player);
+            } else if (getPlayerRepository().contains(player)) {
                 if(!player.isGenuineDisconnection()){
                     player.handleDisconnection();
                 }
-                getPlayerRepository().remove(player.getIndex());
-                IndexManager.freeIndex(player.getIndex());
-                player = null;
-            } else {
-                getPlayerRepository().put(player.getIndex(), player);
+                getPlayerRepository().remove(player);
+                getPlayerGrid().remove(player);
+                playersByName.remove(player.getAuthentication().getUsernameAsLong(), player);
             }
         }
-        registryQueue.clear();
     }
 
     /**
-     * Stores a players login credentials into the registry queue awaiting the
-     * end of cycle where it will be stored in the main list
+     * Gives a player an index and queues them to be registered at the end of
+     * the cycle. Safe from any thread
      *
      * @param player
+     * @return false if the world is full
      */
-    public void register(Player player) {
-        if (getPlayerRepository().size() >= Constants.SERVER_MAX_PLAYERS) {
-            return;
+    public boolean register(Player player) {
+        int index = getPlayerRepository().reserve();
+        if (index == -1) {
+            return false;
         }
-        Integer pIndex = IndexManager.getIndex();
-        player.setIndex(pIndex);
-        registryQueue.add(player);
+        player.setIndex(index);
+        registryQueue.offer(new Registration(player, true));
+        return true;
     }
 
-    private static TaskExecuter task = new TaskExecuter();
+    /**
+     * A request to register or remove a player
+     */
+    private static final class Registration {
+
+        private final Player player;
+        private final boolean register;
 
-    public static TaskExecuter getTask() {
-        return task;
+        private Registration(Player player, boolean register) {
+            this.player = player;
+            this.register = register;
+        }
     }
 
     public static void submit(Task task) {
-        getTask().schedule(task);
+        TaskExecuter.get().schedule(task);
     }
 }
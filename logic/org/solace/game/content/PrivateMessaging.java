@@ -15,8 +15,6 @@
  */
 package org.solace.game.content;
 
-import java.util.Iterator;
-
 import org.solace.game.Game;
 import org.solace.game.entity.mobile.player.Player;
 import org.solace.util.ProtocolUtils;
@@ -79,7 +77,7 @@ public class PrivateMessaging {
         }
         long name = player.getAuthentication().getUsernameAsLong();
         int world = logout ? 0 : checkOnlineStatus(name);
-        for (Player players : Game.getPlayerRepository().values()) {
+        for (Player players : Game.getPlayerRepository()) {
             if (players == null) {
                 continue;
             }
@@ -119,15 +117,10 @@ public class PrivateMessaging {
             player.getPacketDispatcher().sendMessage("That player is offline.");
             return;
         }
-        Iterator<Player> it = Game.getPlayerRepository().values().iterator();
-        while (it.hasNext()) {
-            Player p = it.next();
-            if (p != null) {
-                if (p.getAuthentication().getUsernameAsLong() == username) {
-                    if (!p.getPrivateMessaging().isIgnoringPlayer(player.getAuthentication().getUsernameAsLong())) {
-                        p.getPacketDispatcher().sendPrivateMessage(player.getAuthentication().getUsernameAsLong(), player.getAuthentication().getPlayerRights(), message, size);
-                    }
-                }
+        Player p = Game.getPlayerByName(username);
+        if (p != null) {
+            if (!p.getPrivateMessaging().isIgnoringPlayer(player.getAuthentication().getUsernameAsLong())) {
+                p.getPacketDispatcher().sendPrivateMessage(player.getAuthentication().getUsernameAsLong(), player.getAuthentication().getPlayerRights(), message, size);
             }
         }
     }
@@ -177,15 +170,8 @@ public class PrivateMessaging {
         }
     }
 
-    private synchronized int checkOnlineStatus(long friend) {
-        for (Player p : Game.getPlayerRepository().values()) {
-            if (p != null) {
-                if (p.getAuthentication().getUsernameAsLong() == friend) {
-                    return 1;
-                }
-            }
-        }
-        return 0;
+    private int checkOnlineStatus(long friend) {
+        return Game.getPlayerByName(friend) != null ? 1 : 0;
     }
 
     public int getCount(long[] name) {
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 
 import org.solace.game.Game;
 import org.solace.game.entity.mobile.player.Player;
+import org.solace.util.ProtocolUtils;
 
 /**
  * Calculates the amount of damage done to the entity
@@ -59,9 +60,10 @@ public class DamageDealt {
         Player killer = null;
         int mostDamage = 0;
         for (Damage aDealtDamage : dealtDamage) {
-         if (Game.getPlayerRepository().get(aDealtDamage.getPlayer()) != null) {
+         Player player = Game.getPlayerByName(ProtocolUtils.nameToLong(aDealtDamage.getPlayer()));
+         if (player != null) {
           if (aDealtDamage.getDamage() > mostDamage) {
-           killer = Game.getPlayerRepository().get(aDealtDamage.getPlayer());
+           killer = player;
            mostDamage = aDealtDamage.getDamage();
           }
          }
@@ -27,9 +27,8 @@ import org.solace.util.ProtocolUtils;
 public class FireProjectile {
 
 	public static void submit(Projectile projectile) {
-		for (Player player : Game.getPlayerRepository().values()) {
-			if (player == null)
-				continue;
+		for (Player player : Game.getPlayerGrid().collect(
+				projectile.getLocation(), 60)) {
 			if (ProtocolUtils.getDistance(projectile.getLocation(),
 					player.getLocation()) <= 60) {
 				player.getPacketDispatcher().sendProjectile(
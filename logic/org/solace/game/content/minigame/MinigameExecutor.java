@@ -18,50 +18,34 @@ package org.solace.game.content.minigame;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import org.solace.util.Constants;
 
 /**
+ * Runs the active minigames, once a cycle as part of the game loop.
  *
  * @author Faris
  */
-public class MinigameExecutor extends Thread {
+public class MinigameExecutor {
     
     public static List<Minigame> gamesToBegin = new LinkedList();
     public static List<Minigame> activeGames = new LinkedList();
 
-    @Override
-    public void run() {
-        while(true){
-            executeMinigames();
-            try {
-                Thread.sleep(Constants.SERVER_CYCLE_RATE);
-            } catch (InterruptedException ex) {
-                Logger.getLogger(MinigameExecutor.class.getName()).log(Level.SEVERE, null, ex);
-            }
-        }
-    }
-
-    private void executeMinigames() {
-        if(activeGames.isEmpty()){
-            return;
+    /**
+     * Starts the games waiting to begin, then processes every active game and
+     * removes those that have ended
+     */
+    public static void process() {
+        if (!gamesToBegin.isEmpty()) {
+            activeGames.addAll(gamesToBegin);
+            gamesToBegin.clear();
         }
         Iterator<Minigame> it = activeGames.iterator();
         while(it.hasNext()){
             Minigame game = it.next();
             if(game.gameShouldEnd()){
-                activeGames.remove(game);
+                it.remove();
             }
             game.process();
         }
-        if(gamesToBegin.isEmpty()){
-            return;
-        }
-        for(Minigame game : gamesToBegin){
-            activeGames.add(game);
-        }
-        gamesToBegin.clear();
     }
     
 }
\ No newline at end of file
@@ -16,6 +16,7 @@
 package org.solace.game.content.skills;
 
 import org.solace.game.entity.Graphic;
+import org.solace.game.entity.UpdateFlags.UpdateFlag;
 import org.solace.game.entity.mobile.player.Player;
 
 public class SkillHandler {
@@ -186,6 +187,10 @@ public class SkillHandler {
             playerLevel[skill] += levelDifference;
             handleLevelUpData(skill);
             player.setGraphic(Graphic.highGraphic(199, 0));
+            /*
+             * The combat level is part of the appearance.
+             */
+            player.getUpdateFlags().flag(UpdateFlag.APPEARANCE);
         }
         refreshSkill(skill);
     }
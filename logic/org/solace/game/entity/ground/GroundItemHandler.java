@@ -104,20 +104,14 @@ public class GroundItemHandler {
 	}
 
 	/**
-	 * Sends a ground item to all players except it's owner.
+	 * Sends a ground item to all nearby players except it's owner.
 	 * 
 	 * @param groundItem
 	 *            the ground item
 	 */
 	public static void sendGroundItem(GroundItem groundItem) {
-		for (Player player : Game.getPlayerRepository().values()) {
-			if (player == null) {
-				continue;
-			}
-			if (groundItem.getLocation().withinDistance(player.getLocation(),
-					32)) {
-				continue;
-			}
+		for (Player player : Game.getPlayerGrid().collect(
+				groundItem.getLocation(), 32)) {
 			if ((!player.getAuthentication().getUsername()
 					.equals(groundItem.dropper()) && player.getLocation()
 					.withinDistance(groundItem.getLocation(), 32))) {
@@ -127,17 +121,15 @@ public class GroundItemHandler {
 	}
 
 	/**
-	 * Sends a remove ground item packet to all players.
+	 * Sends a remove ground item packet to all nearby players.
 	 * 
 	 * @param groundItem
 	 *            the ground item
 	 */
 	public static void sendRemoveGroundItem(GroundItem groundItem) {
-		for (Player player : Game.getPlayerRepository().values()) {
-			if (player == null) {
-				continue;
-			}
-			if (groundItem.getLocation().withinDistance(player.getLocation(),
+		for (Player player : Game.getPlayerGrid().collect(
+				groundItem.getLocation(), 32)) {
+			if (!groundItem.getLocation().withinDistance(player.getLocation(),
 					32)) {
 				continue;
 			}
@@ -156,7 +148,7 @@ public class GroundItemHandler {
 			if (groundItem == null) {
 				continue;
 			}
-			if (groundItem.getLocation().withinDistance(player.getLocation(),
+			if (!groundItem.getLocation().withinDistance(player.getLocation(),
 					32)) {
 				continue;
 			}
@@ -179,7 +171,7 @@ public class GroundItemHandler {
 			if (groundItem == null) {
 				continue;
 			}
-			if (groundItem.getLocation().withinDistance(player.getLocation(),
+			if (!groundItem.getLocation().withinDistance(player.getLocation(),
 					32)) {
 				continue;
 			}
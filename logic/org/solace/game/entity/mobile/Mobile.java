@@ -56,6 +56,12 @@ public abstract class Mobile extends Entity {
 	 */
 	private Entity interactingEntity;
 
+	/**
+	 * The key of the chunk this mobile is indexed under in its grid, offset by
+	 * one so that mobiles built without running initializers start unindexed
+	 */
+	private int chunkKey;
+
 	/**
 	 * Creates an instance of the mobilityManager
 	 */
@@ -89,6 +95,7 @@ public abstract class Mobile extends Entity {
 	 */
 	public Entity location(Location location) {
 		this.location = location;
+		relocate();
 		return this;
 	}
 
@@ -99,6 +106,28 @@ public abstract class Mobile extends Entity {
 	 */
 	public void setLocation(Location location) {
 		super.location = location;
+		relocate();
+	}
+
+	/**
+	 * Moves this mobile to the chunk matching its current location in the
+	 * grid it is indexed by
+	 */
+	public abstract void relocate();
+
+	/**
+	 * @return the key of the chunk this mobile is indexed under
+	 */
+	public int chunkKey() {
+		return chunkKey - 1;
+	}
+
+	/**
+	 * @param chunkKey
+	 *            the key of the chunk this mobile is indexed under
+	 */
+	public void chunkKey(int chunkKey) {
+		this.chunkKey = chunkKey + 1;
 	}
 
 	/**
@@ -497,8 +526,8 @@ public abstract class Mobile extends Entity {
 	}
 	
 	public boolean inWild() {
-		return ( getLocation().inArea( getLocation(), new Location(2942, 3520), new Location(3391, 3965)))
-				|| ( getLocation().inArea( getLocation(), new Location(2942, 9919), new Location(3391, 10365)));
+		return getLocation().withinArea(getLocation(), 3965, 3391, 3520, 2942)
+				|| getLocation().withinArea(getLocation(), 10365, 3391, 9919, 2942);
 	}
 	
 	/**
@@ -15,12 +15,11 @@
  */
 package org.solace.game.entity.mobile;
 
-import java.util.Deque;
-import java.util.LinkedList;
 import org.solace.util.ProtocolUtils;
 import org.solace.game.entity.mobile.Mobile.WelfareStatus;
 import org.solace.game.entity.mobile.npc.NPC;
 import org.solace.game.entity.mobile.player.Player;
+import org.solace.game.map.Coordinates;
 import org.solace.game.map.Location;
 
 /**
@@ -31,7 +30,7 @@ import org.solace.game.map.Location;
 public class MobilityManager {
 
 	private Mobile mobile;
-	private Deque<Location> movementSteps;
+	private StepQueue movementSteps;
 
 	private int walkingDirection = -1, runningDirection = -1;
 	private boolean running = true;
@@ -44,7 +43,7 @@ public class MobilityManager {
 	 * @return a new movement manager
 	 */
 	public MobilityManager(Mobile mobile) {
-		movementSteps = new LinkedList<Location>();
+		movementSteps = new StepQueue();
 		mobile(mobile);
 	}
 
@@ -55,9 +54,22 @@ public class MobilityManager {
 	 *            the movement destination
 	 */
 	public MobilityManager queueDestination(Location destination) {
-		Location lastStep = movementSteps.peekLast();
-		int diffX = destination.getX() - lastStep.getX();
-		int diffY = destination.getY() - lastStep.getY();
+		return queueDestination(destination.getX(), destination.getY());
+	}
+
+	/**
+	 * Adds movement destination to the queue.
+	 * 
+	 * @param x
+	 *            the destination x coordinate
+	 * 
+	 * @param y
+	 *            the destination y coordinate
+	 */
+	public MobilityManager queueDestination(int x, int y) {
+		int lastStep = movementSteps.peekLast();
+		int diffX = x - Coordinates.x(lastStep);
+		int diffY = y - Coordinates.y(lastStep);
 		int stepsAmount = Math.max(Math.abs(diffX), Math.abs(diffY));
 		for (int i = 0; i < stepsAmount; i++) {
 			if (diffX < 0) {
@@ -70,7 +82,7 @@ public class MobilityManager {
 			} else if (diffY > 0) {
 				diffY--;
 			}
-			queueStep(destination.getX() - diffX, destination.getY() - diffY);
+			queueStep(x - diffX, y - diffY);
 		}
 		return this;
 	}
@@ -85,11 +97,12 @@ public class MobilityManager {
 	 *            the y coordinate
 	 */
 	public MobilityManager queueStep(int x, int y) {
-		Location currentStep = movementSteps.peekLast();
-		int diffX = x - currentStep.getX();
-		int diffY = y - currentStep.getY();
+		int currentStep = movementSteps.peekLast();
+		int diffX = x - Coordinates.x(currentStep);
+		int diffY = y - Coordinates.y(currentStep);
 		if (ProtocolUtils.getDirection(diffX, diffY) > -1) {
-			movementSteps.add(new Location(x, y));
+			movementSteps.add(Coordinates.pack(x, y,
+					Coordinates.height(currentStep)));
 		}
 		return this;
 	}
@@ -127,6 +140,7 @@ public class MobilityManager {
 			if (running() && !movementSteps.isEmpty()) {
 				runningDirection(generateDirection());
 			}
+			mobile.relocate();
 			int diffX = mobile.getLocation().getX()
 					- mobile.getCachedRegion().regionX() * 8;
 			int diffY = mobile.getLocation().getY()
@@ -150,12 +164,10 @@ public class MobilityManager {
 						- mobile.getTargettedLocation().getY());
 				int offsetX = ProtocolUtils.DIRECTION_DELTA_X[random];
 				int offsetY = ProtocolUtils.DIRECTION_DELTA_Y[random];
-				Location newLocation = new Location((mobile.getLocation()
-						.getX() + offsetX),
-						(mobile.getLocation().getY() + offsetY));
 				if (mobile.getInteractingEntity() != null) {
 					if (!movementSteps.isEmpty()) {
 						walkingDirection(generateDirection());
+						mobile.relocate();
 					}
 				} else {
 					int randomValue = ProtocolUtils.random(10);
@@ -167,7 +179,16 @@ public class MobilityManager {
 										.getMaximumWalkingDistance()) {
 							walkingDirection(-1);
 						} else {
-							mobile.setLocation(newLocation);
+							/*
+							 * A new location, the current one may be the spawn
+							 * point the walking distance is measured from
+							 */
+							Location current = mobile.getLocation();
+							Location step = new Location(current.getX() + offsetX,
+									current.getY() + offsetY, current.getH());
+							step.lastX = current.getX();
+							step.lastY = current.getY();
+							mobile.setLocation(step);
 							walkingDirection(random);
 						}
 					}
@@ -183,10 +204,10 @@ public class MobilityManager {
 	 * @return next walking direction for player updating
 	 */
 	public int generateDirection() {
-		Location nextStep = movementSteps.poll();
+		int nextStep = movementSteps.poll();
 		Location currentStep = mobile.getLocation();
-		int diffX = nextStep.getX() - currentStep.getX();
-		int diffY = nextStep.getY() - currentStep.getY();
+		int diffX = Coordinates.x(nextStep) - currentStep.getX();
+		int diffY = Coordinates.y(nextStep) - currentStep.getY();
 		int direction = ProtocolUtils.getDirection(diffX, diffY);
 		if (direction > -1) {
 			mobile.getLocation().transform(
@@ -202,7 +223,7 @@ public class MobilityManager {
 	public MobilityManager prepare() {
 		walkingDirection(-1).runningDirection(-1);
 		movementSteps.clear();
-		movementSteps.add(mobile.getLocation());
+		movementSteps.add(mobile.getLocation().packed());
 		return this;
 	}
 
@@ -217,7 +238,7 @@ public class MobilityManager {
 		int newX = (entityLocation.getX() + directionX);
 		int newY = (entityLocation.getY() + directionY);
 		prepare();
-		queueDestination(new Location(newX, newY));
+		queueDestination(newX, newY);
 		finish();
 	}
 
@@ -225,7 +246,7 @@ public class MobilityManager {
 	 * Finishes queue preparation.
 	 */
 	public MobilityManager finish() {
-		movementSteps.removeFirst();
+		movementSteps.poll();
 		return this;
 	}
 
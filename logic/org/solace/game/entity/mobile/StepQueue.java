@@ -0,0 +1,87 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.game.entity.mobile;
+
+/**
+ * Double ended queue of walking steps held as packed coordinates in a
+ * growable ring, so queueing a path does not allocate a location per tile.
+ *
+ * @author Faris
+ */
+class StepQueue {
+
+	/**
+	 * The packed steps.
+	 */
+	private int[] steps = new int[32];
+
+	/**
+	 * The slot of the first step and the amount of steps queued.
+	 */
+	private int head, size;
+
+	/**
+	 * Appends a step to the queue.
+	 *
+	 * @param packed
+	 *            the packed coordinates of the step
+	 */
+	void add(int packed) {
+		if (size == steps.length) {
+			int[] grown = new int[steps.length << 1];
+			for (int i = 0; i < size; i++) {
+				grown[i] = steps[(head + i) & (steps.length - 1)];
+			}
+			steps = grown;
+			head = 0;
+		}
+		steps[(head + size++) & (steps.length - 1)] = packed;
+	}
+
+	/**
+	 * Removes the first step.
+	 *
+	 * @return the packed coordinates of the step
+	 */
+	int poll() {
+		int packed = steps[head];
+		head = (head + 1) & (steps.length - 1);
+		size--;
+		return packed;
+	}
+
+	/**
+	 * @return the packed coordinates of the last step
+	 */
+	int peekLast() {
+		return steps[(head + size - 1) & (steps.length - 1)];
+	}
+
+	/**
+	 * @return true if no steps are queued
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes every step.
+	 */
+	void clear() {
+		head = size = 0;
+	}
+
+}
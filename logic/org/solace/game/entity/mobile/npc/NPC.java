@@ -17,6 +17,7 @@ package org.solace.game.entity.mobile.npc;
 
 import org.solace.Server;
 import org.solace.event.impl.NpcDeathService;
+import org.solace.game.Game;
 import org.solace.game.content.combat.Combat;
 import org.solace.game.content.combat.impl.Hit;
 import org.solace.game.entity.mobile.Mobile;
@@ -61,6 +62,12 @@ public class NPC extends Mobile {
 
     private boolean spawnedNpc;
 
+    /**
+     * The update block every player seeing this npc gets this cycle, null if
+     * no update is required.
+     */
+    private byte[] cachedUpdateBlock;
+
     @Override
     public void update() {
         getMobilityManager().processMovement();
@@ -69,6 +76,11 @@ public class NPC extends Mobile {
         }
     }
 
+    @Override
+    public void relocate() {
+        Game.getNpcGrid().move(this);
+    }
+
     private void handleNpcAttributes() {
         addAttribute("FROZEN", Boolean.FALSE);
         addAttribute("IMMUNE", Boolean.FALSE);
@@ -143,4 +155,22 @@ public class NPC extends Mobile {
         }
     }
 
+    /**
+     * Sets the cached update block for this cycle.
+     *
+     * @param cachedUpdateBlock The cached update block.
+     */
+    public void setCachedUpdateBlock(byte[] cachedUpdateBlock) {
+        this.cachedUpdateBlock = cachedUpdateBlock;
+    }
+
+    /**
+     * Gets the cached update block.
+     *
+     * @return The cached update block.
+     */
+    public byte[] getCachedUpdateBlock() {
+        return cachedUpdateBlock;
+    }
+
 }
@@ -16,7 +16,6 @@
 package org.solace.game.entity.mobile.npc;
 
 import java.io.IOException;
-import org.solace.util.IndexManager;
 import org.solace.game.Game;
 import org.solace.game.entity.mobile.Mobile.MovementStatus;
 import org.solace.game.map.Location;
@@ -36,18 +35,14 @@ public class NPCAdvocate {
     }
 
     public static void addNpc(NPC npc) {
-        Integer npcIndex = IndexManager.getNpcIndex();
-        Game.getNpcRepository().put(npcIndex, npc);
-        npc.setIndex(npcIndex);
+        if (Game.getNpcRepository().add(npc)) {
+            Game.getNpcGrid().add(npc);
+        }
     }
 
-    public static void removeNpc(NPC givenNpc) {
-        for (NPC npc : Game.getNpcRepository().values()) {
-            if (npc == givenNpc) {
-                npc.setIndex(npc.getIndex());
-                Game.getNpcRepository().remove(givenNpc);
-                npc = null;
-            }
+    public static void removeNpc(NPC npc) {
+        if (Game.getNpcRepository().remove(npc)) {
+            Game.getNpcGrid().remove(npc);
         }
     }
 
@@ -0,0 +1,178 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.game.entity.mobile.player;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.solace.event.impl.PlayerLoadService;
+import org.solace.game.Game;
+import org.solace.network.RSChannelContext;
+import org.solace.network.packet.PacketBuilder;
+import org.solace.network.packet.RSPacketDecoder;
+import org.solace.util.Constants;
+import org.solace.util.NamedThreadFactory;
+
+/**
+ * Loads the save files of players logging in on a bounded pool of workers,
+ * away from the network threads. Players whose details check out are handed
+ * back to the game cycle, which registers them in {@link #finishLogins()}.
+ *
+ * @author Faris
+ */
+public class LoginExecutor {
+
+	/**
+	 * Login response for a successful login.
+	 */
+	private static final int LOGIN_OKAY = 2;
+
+	/**
+	 * Login response for an invalid username or password.
+	 */
+	private static final int INVALID_CREDENTIALS = 3;
+
+	/**
+	 * Login response telling the client it may retry shortly.
+	 */
+	private static final int COULD_NOT_COMPLETE = 13;
+
+	/**
+	 * Login response sent when the world is full.
+	 */
+	private static final int WORLD_FULL = 10;
+
+	/**
+	 * The workers loading save files. Requests beyond the queue capacity are
+	 * refused rather than left to pile up.
+	 */
+	private static final ThreadPoolExecutor workers = new ThreadPoolExecutor(
+			Constants.LOGIN_WORKER_THREADS, Constants.LOGIN_WORKER_THREADS, 0L,
+			TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+					Constants.LOGIN_QUEUE_CAPACITY), new NamedThreadFactory(
+					"LoginWorker"));
+
+	/**
+	 * Players whose save files loaded, awaiting the next game cycle.
+	 */
+	private static final Queue<Player> completed = new ConcurrentLinkedQueue<Player>();
+
+	/**
+	 * Hands a player to the login workers. If the workers are saturated the
+	 * client is told to try again.
+	 *
+	 * @param player
+	 *            the player logging in
+	 */
+	public static void submit(final Player player) {
+		try {
+			workers.execute(new Runnable() {
+				@Override
+				public void run() {
+					load(player);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			reject(player.channelContext(), COULD_NOT_COMPLETE);
+		}
+	}
+
+	/**
+	 * Loads the save file of a player, runs on a login worker.
+	 *
+	 * @param player
+	 *            the player logging in
+	 */
+	private static void load(Player player) {
+		boolean loaded;
+		try {
+			loaded = new PlayerLoadService(player).load();
+		} catch (Exception e) {
+			e.printStackTrace();
+			reject(player.channelContext(), COULD_NOT_COMPLETE);
+			return;
+		}
+		if (!loaded) {
+			reject(player.channelContext(), INVALID_CREDENTIALS);
+			return;
+		}
+		completed.add(player);
+	}
+
+	/**
+	 * Registers every player loaded since the last cycle and sends them the
+	 * login response. Must only be called from the game cycle.
+	 */
+	public static void finishLogins() {
+		Player player;
+		while ((player = completed.poll()) != null) {
+			RSChannelContext channelContext = player.channelContext();
+			if (channelContext.isDisconnected()) {
+				continue;
+			}
+			if (!Game.getSingleton().register(player)) {
+				reject(channelContext, WORLD_FULL);
+				continue;
+			}
+			channelContext.player(player);
+			channelContext.decoder(new RSPacketDecoder());
+			PacketBuilder out = PacketBuilder.allocate(3);
+			out.putByte(LOGIN_OKAY);
+			out.putByte(player.getAuthentication().getPlayerRights());
+			out.putByte(0);
+			out.sendTo(channelContext);
+			player.getPacketDispatcher().sendInitPacket();
+			try {
+				channelContext.flush();
+			} catch (IOException e) {
+				channelContext.disconnect();
+			}
+		}
+	}
+
+	/**
+	 * Sends a failed login response and closes the connection.
+	 *
+	 * @param channelContext
+	 *            the connection
+	 * @param response
+	 *            the login response
+	 */
+	private static void reject(RSChannelContext channelContext, int response) {
+		PacketBuilder out = PacketBuilder.allocate(3);
+		out.putByte(response);
+		out.putByte(0);
+		out.putByte(0);
+		out.sendTo(channelContext);
+		try {
+			channelContext.flush();
+		} catch (IOException e) {
+		}
+		channelContext.disconnect();
+	}
+
+	/**
+	 * Stops accepting logins.
+	 */
+	public static void terminate() {
+		workers.shutdown();
+	}
+
+}
@@ -22,6 +22,7 @@ import org.solace.event.events.PlayerDisconnectionEvent;
 import org.solace.event.events.PlayerLoginEvent;
 import org.solace.event.events.PlayerLogoutEvent;
 import org.solace.event.impl.PlayerDeathService;
+import org.solace.game.Game;
 import org.solace.game.content.PrivateMessaging;
 import org.solace.game.content.combat.Combat;
 import org.solace.game.content.combat.PrayerHandler;
@@ -37,7 +38,6 @@ import org.solace.game.item.container.impl.Equipment;
 import org.solace.game.item.container.impl.Inventory;
 import org.solace.game.map.Location;
 import org.solace.network.RSChannelContext;
-import org.solace.network.packet.PacketBuilder;
 import org.solace.network.packet.PacketDispatcher;
 import org.solace.task.Task;
 
@@ -69,9 +69,21 @@ public class Player extends Mobile {
 
 
     /**
-     * The cached update block.
+     * The update block other players see this cycle, null if no update is
+     * required.
      */
-    private PacketBuilder cachedUpdateBlock;
+    private byte[] cachedUpdateBlock;
+
+    /**
+     * The update block sent to players adding this player to their local
+     * list, kept across cycles while no update is required.
+     */
+    private byte[] cachedForcedUpdateBlock;
+
+    /**
+     * The encoded appearance, kept until the appearance is flagged again.
+     */
+    private byte[] cachedAppearance;
 
     /**
      * Initialises the attributes
@@ -89,7 +101,7 @@ public class Player extends Mobile {
      */
     private int playerHeadIcon = -1;
     private boolean buryingBones;
-    private boolean logoutRequired = false;
+    private volatile boolean logoutRequired = false;
     private double prayerPoint = 1.0;
     private int[] bonuses = new int[12];
     private int spellId;
@@ -99,6 +111,7 @@ public class Player extends Mobile {
     private double prayerDrainRate;
     public long foodDelay;
     private boolean genuineDisconnection = false, disconnectionHandled;
+    private long saveChecksum = -1;
 
     public Player(String username, String password, RSChannelContext channelContext) {
         super(new Location(3200,3200));
@@ -127,6 +140,11 @@ public class Player extends Mobile {
         }
     }
 
+    @Override
+    public void relocate() {
+        Game.getPlayerGrid().move(this);
+    }
+
     /**
      * Sets channel context as parsed context
      *
@@ -291,6 +309,20 @@ public class Player extends Mobile {
         this.logoutRequired = logoutRequired;
     }
 
+    /**
+     * @return the checksum of the last save submitted
+     */
+    public long getSaveChecksum() {
+        return saveChecksum;
+    }
+
+    /**
+     * @param saveChecksum the checksum of the save submitted
+     */
+    public void setSaveChecksum(long saveChecksum) {
+        this.saveChecksum = saveChecksum;
+    }
+
     public int[] getBonuses() {
         return bonuses;
     }
@@ -443,7 +475,7 @@ public class Player extends Mobile {
      *
      * @param cachedUpdateBlock The cached update block.
      */
-    public void setCachedUpdateBlock(PacketBuilder cachedUpdateBlock) {
+    public void setCachedUpdateBlock(byte[] cachedUpdateBlock) {
         this.cachedUpdateBlock = cachedUpdateBlock;
     }
 
@@ -452,14 +484,54 @@ public class Player extends Mobile {
      *
      * @return The cached update block.
      */
-    public PacketBuilder getCachedUpdateBlock() {
+    public byte[] getCachedUpdateBlock() {
         return cachedUpdateBlock;
     }
 
     /**
-     * Resets the cached update block.
+     * Sets the cached forced update block.
+     *
+     * @param cachedForcedUpdateBlock The cached forced update block.
+     */
+    public void setCachedForcedUpdateBlock(byte[] cachedForcedUpdateBlock) {
+        this.cachedForcedUpdateBlock = cachedForcedUpdateBlock;
+    }
+
+    /**
+     * Gets the cached forced update block.
+     *
+     * @return The cached forced update block.
+     */
+    public byte[] getCachedForcedUpdateBlock() {
+        return cachedForcedUpdateBlock;
+    }
+
+    /**
+     * Sets the cached appearance.
+     *
+     * @param cachedAppearance The encoded appearance.
+     */
+    public void setCachedAppearance(byte[] cachedAppearance) {
+        this.cachedAppearance = cachedAppearance;
+    }
+
+    /**
+     * Gets the cached appearance.
+     *
+     * @return The encoded appearance.
+     */
+    public byte[] getCachedAppearance() {
+        return cachedAppearance;
+    }
+
+    /**
+     * Resets the cached update block at the end of a cycle. A forced block
+     * holding this cycle's updates is dropped with it.
      */
     public void resetCachedUpdateBlock() {
+        if (cachedUpdateBlock != null) {
+            cachedForcedUpdateBlock = null;
+        }
         cachedUpdateBlock = null;
     }
 
@@ -15,17 +15,14 @@
  */
 package org.solace.game.entity.mobile.player;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import net.burtlebutle.bob.rand.isaac.ISAAC;
-import org.solace.event.impl.PlayerLoadService;
 import org.solace.network.NIODecoder;
 import org.solace.network.RSChannelContext;
 import org.solace.network.packet.PacketBuilder;
-import org.solace.network.packet.RSPacketDecoder;
-import org.solace.util.Constants;
 import org.solace.util.ProtocolUtils;
-import org.solace.game.Game;
 
 /**
  * RuneScape login procedure decoder.
@@ -36,14 +33,23 @@ import org.solace.game.Game;
 public class PlayerLoginDecipher implements NIODecoder {
 
 	private PlayerLoginDecipher.State state = PlayerLoginDecipher.State.READ_USERNAME_HASH;
-	private ByteBuffer buffer = ByteBuffer.allocateDirect(126);
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(512);
 
 	@Override
 	public void decode(RSChannelContext channelContext) throws IOException {
-		channelContext.channel().read(buffer);
+		if (channelContext.channel().read(buffer) == -1) {
+			throw new EOFException();
+		}
 		buffer.flip();
 		switch (state) {
 
+		case AWAITING_RESPONSE:
+			/*
+			 * The client sends nothing until it has its response.
+			 */
+			buffer.clear();
+			break;
+
 		case READ_USERNAME_HASH:
 			/*
 			 * Check if buffer has enough readable data.
@@ -59,7 +65,7 @@ public class PlayerLoginDecipher implements NIODecoder {
 			int loginType = buffer.get() & 0xFF;
 			if (loginType != 14) {
 				System.out.println("Invalid login type.");
-				channelContext.channel().close();
+				channelContext.disconnect();
 				break;
 			}
 
@@ -74,7 +80,8 @@ public class PlayerLoginDecipher implements NIODecoder {
 			 */
 			PacketBuilder out = PacketBuilder.allocate(17);
 			out.putBytes(0, 17);
-			out.sendTo(channelContext.channel());
+			out.sendTo(channelContext);
+			channelContext.flush();
 
 			/*
 			 * Switch to the next login procedure state.
@@ -99,7 +106,7 @@ public class PlayerLoginDecipher implements NIODecoder {
 			int loginRequest = buffer.get() & 0xFF;
 			if (loginRequest != 16 && loginRequest != 18) {
 				System.out.println("Invalid login request.");
-				channelContext.channel().close();
+				channelContext.disconnect();
 				break;
 			}
 
@@ -118,7 +125,6 @@ public class PlayerLoginDecipher implements NIODecoder {
 			 * Check if buffer has enough readable data.
 			 */
 			if (buffer.remaining() < loginPacketLength) {
-				buffer.flip();
 				buffer.compact();
 				break;
 			}
@@ -134,7 +140,7 @@ public class PlayerLoginDecipher implements NIODecoder {
 			int clientVersion = buffer.getShort();
 			if (clientVersion != 317) {
 				//System.out.println("Invalid Client revision.");
-				//channelContext.channel().close();
+				//channelContext.disconnect();
 				//break;
 			}
 
@@ -159,7 +165,7 @@ public class PlayerLoginDecipher implements NIODecoder {
 			int expectedPayloadSize = buffer.get() & 0xFF;
 			if (expectedPayloadSize != loginPacketLength - 41) {
 				System.out.println("Invalid payload size.");
-				channelContext.channel().close();
+				channelContext.disconnect();
 				break;
 			}
 
@@ -169,7 +175,7 @@ public class PlayerLoginDecipher implements NIODecoder {
 			int rsaOpcode = buffer.get() & 0xFF;
 			if (rsaOpcode != 10) {
 				System.out.println("Invalid RSA operation code.");
-				channelContext.channel().close();
+				channelContext.disconnect();
 				break;
 			}
 
@@ -205,53 +211,15 @@ public class PlayerLoginDecipher implements NIODecoder {
 			String password = ProtocolUtils.getRSString(buffer);
 
 			if (username.isEmpty() || password.isEmpty()) {
-				channelContext.channel().close();
+				channelContext.disconnect();
 				return;
 			}
 			/*
-			 * Create the player object for this channel.
-			 */
-			Player player = new Player(username, password, channelContext);
-			boolean loaded = new PlayerLoadService(player).load();
-
-			/*
-			 * Generate response opcode.
-			 */
-			int response = 2;
-
-			if (!loaded) {
-				System.out.println("IGNORE FOR NOW, NO LOADING AVAILABLE");
-				/*
-				 * Invalid username or password.
-				 */
-				response = 3;
-			} else {
-				channelContext.player(player);
-				Game.getSingleton().register(player);
-			}
-
-			if (Game.getPlayerRepository().size() >= Constants.SERVER_MAX_PLAYERS) {
-				response = 10;
-			}
-
-			/*
-			 * Write the login procedure response.
-			 */
-			out = PacketBuilder.allocate(3);
-			out.putByte(response);
-			out.putByte(player.getAuthentication().getPlayerRights());
-			out.putByte(0);
-			out.sendTo(channelContext.channel());
-
-			/*
-			 * Since login procedure is finished, switching to packet decoder.
-			 */
-			channelContext.decoder(new RSPacketDecoder());
-
-			/*
-			 * And finally sending the initialization packet to the client.
+			 * Create the player object for this channel and leave loading it
+			 * to the login workers, nothing more is read until they reply.
 			 */
-			player.getPacketDispatcher().sendInitPacket();
+			state = PlayerLoginDecipher.State.AWAITING_RESPONSE;
+			LoginExecutor.submit(new Player(username, password, channelContext));
 			break;
 		}
 	}
@@ -266,7 +234,7 @@ public class PlayerLoginDecipher implements NIODecoder {
 	 * Login procedure states.
 	 */
 	private enum State {
-		READ_USERNAME_HASH, READ_LOGIN_HEADER, READ_LOGIN_PAYLOAD
+		READ_USERNAME_HASH, READ_LOGIN_HEADER, READ_LOGIN_PAYLOAD, AWAITING_RESPONSE
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,476 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.game.entity.mobile.player;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.solace.game.item.Item;
+import org.solace.game.item.container.Container;
+
+/**
+ * Encodes and decodes save files. A save starts with a header: a two byte
+ * magic, the format version, a flags byte and the length of the body as a
+ * varint. The body follows, deflated if that made it smaller, and the save
+ * ends with the CRC32 of the uncompressed body.
+ * <p>
+ * Numbers in the body are varints. Containers and the friend and ignore lists
+ * only hold their occupied slots, each as the gap since the previous one
+ * followed by its contents, so a sparse bank costs a few bytes per item and a
+ * packed bank one byte less than that.
+ * <p>
+ * Saves written before the format existed have no header and are read in
+ * their old layout, then written in this format the next time the player is
+ * saved.
+ *
+ * @author Faris
+ */
+public class PlayerSaveCodec {
+
+	/**
+	 * Starts every save. Read as the length of a legacy save's username it is
+	 * far too long, so the two layouts never look alike.
+	 */
+	private static final int MAGIC = 0x5053;
+
+	/**
+	 * The format written.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Set in the flags if the body is deflated.
+	 */
+	private static final int COMPRESSED = 1;
+
+	/**
+	 * Bodies shorter than this are never worth deflating.
+	 */
+	private static final int COMPRESSION_THRESHOLD = 256;
+
+	/**
+	 * The longest body accepted, anything longer is a corrupt save.
+	 */
+	private static final int MAXIMUM_LENGTH = 1 << 16;
+
+	/**
+	 * Bits of the settings byte.
+	 */
+	private static final int RUNNING = 1, AUTO_RETALIATING = 2;
+
+	/**
+	 * Encodes a player's save.
+	 *
+	 * @param player
+	 *            the player
+	 *
+	 * @return the save
+	 */
+	public static byte[] encode(Player player) {
+		ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+		PlayerAuthentication authentication = player.getAuthentication();
+		writeString(body, authentication.getUsername());
+		writeString(body, authentication.getPassword());
+		writeVarint(body, player.getLocation().getX());
+		writeVarint(body, player.getLocation().getY());
+		writeVarint(body, player.getLocation().getH());
+		writeVarint(body, authentication.getPlayerRights());
+		body.write((player.getMobilityManager().running() ? RUNNING : 0)
+				| (player.getSettings().isAutoRetaliating() ? AUTO_RETALIATING : 0));
+		writeVarint(body, player.getSettings().getVolume());
+		writeVarint(body, player.getSettings().getSound());
+		writeVarint(body, player.getSettings().getBrightness());
+		writeArray(body, authentication.appearanceIndex);
+		writeArray(body, player.getSkills().getPlayerLevel());
+		writeArray(body, player.getSkills().getPlayerExp());
+		writeContainer(body, player.getInventory());
+		writeContainer(body, player.getEquipment());
+		writeContainer(body, player.getBanking());
+		writeNames(body, player.getPrivateMessaging().getFriends());
+		writeNames(body, player.getPrivateMessaging().getIgnores());
+
+		byte[] raw = body.toByteArray();
+		byte[] payload = raw;
+		int flags = 0;
+		if (raw.length >= COMPRESSION_THRESHOLD) {
+			byte[] deflated = deflate(raw);
+			if (deflated != null) {
+				payload = deflated;
+				flags |= COMPRESSED;
+			}
+		}
+		ByteArrayOutputStream save = new ByteArrayOutputStream(payload.length + 12);
+		save.write(MAGIC >> 8);
+		save.write(MAGIC & 0xFF);
+		save.write(VERSION);
+		save.write(flags);
+		writeVarint(save, raw.length);
+		save.write(payload, 0, payload.length);
+		CRC32 crc = new CRC32();
+		crc.update(raw, 0, raw.length);
+		int checksum = (int) crc.getValue();
+		save.write(checksum >>> 24);
+		save.write(checksum >>> 16);
+		save.write(checksum >>> 8);
+		save.write(checksum);
+		return save.toByteArray();
+	}
+
+	/**
+	 * Decodes a save into a player, in whichever layout it was written.
+	 *
+	 * @param player
+	 *            the player, holding the credentials they logged in with
+	 * @param save
+	 *            the save
+	 *
+	 * @return false if the credentials do not match the save
+	 *
+	 * @throws IOException
+	 *             if the save is corrupt
+	 */
+	public static boolean decode(Player player, byte[] save) throws IOException {
+		if (save.length < 2 || ((save[0] & 0xFF) << 8 | save[1] & 0xFF) != MAGIC) {
+			return decodeLegacy(player, save);
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(save);
+			buffer.position(2);
+			int version = buffer.get() & 0xFF;
+			if (version > VERSION) {
+				throw new IOException("Unknown save version " + version);
+			}
+			int flags = buffer.get() & 0xFF;
+			int length = readVarint(buffer);
+			if (length > MAXIMUM_LENGTH || buffer.remaining() < 4) {
+				throw new IOException("Corrupt save header");
+			}
+			byte[] raw;
+			int end = save.length - 4;
+			if ((flags & COMPRESSED) != 0) {
+				raw = inflate(save, buffer.position(), end - buffer.position(), length);
+			} else if (end - buffer.position() == length) {
+				raw = new byte[length];
+				buffer.get(raw);
+			} else {
+				throw new IOException("Corrupt save length");
+			}
+			CRC32 crc = new CRC32();
+			crc.update(raw, 0, raw.length);
+			if ((int) crc.getValue() != ByteBuffer.wrap(save, end, 4).getInt()) {
+				throw new IOException("Save checksum mismatch");
+			}
+			return decodeBody(player, ByteBuffer.wrap(raw));
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated save", e);
+		}
+	}
+
+	private static boolean decodeBody(Player player, ByteBuffer body) throws IOException {
+		PlayerAuthentication authentication = player.getAuthentication();
+		String username = readString(body);
+		if (!username.equalsIgnoreCase(authentication.getUsername())) {
+			return false;
+		}
+		String password = readString(body);
+		if (!password.equalsIgnoreCase(authentication.getPassword())) {
+			return false;
+		}
+		authentication.setUsername(username);
+		authentication.setPassword(password);
+		player.getLocation().setX(readVarint(body));
+		player.getLocation().setY(readVarint(body));
+		player.getLocation().setH(readVarint(body));
+		authentication.setPlayerRights(readVarint(body));
+		int settings = body.get();
+		player.getMobilityManager().running((settings & RUNNING) != 0);
+		player.getSettings().setAutoRetaliating((settings & AUTO_RETALIATING) != 0);
+		player.getSettings().setVolume(readVarint(body));
+		player.getSettings().setSound(readVarint(body));
+		player.getSettings().setBrightness(readVarint(body));
+		readArray(body, authentication.appearanceIndex);
+		readArray(body, player.getSkills().getPlayerLevel());
+		readArray(body, player.getSkills().getPlayerExp());
+		readContainer(body, player.getInventory());
+		readContainer(body, player.getEquipment());
+		readContainer(body, player.getBanking());
+		readNames(body, player.getPrivateMessaging().getFriends());
+		readNames(body, player.getPrivateMessaging().getIgnores());
+		return true;
+	}
+
+	/**
+	 * Decodes a save written before the format had a header.
+	 */
+	private static boolean decodeLegacy(Player player, byte[] save) throws IOException {
+		DataInputStream load = new DataInputStream(new ByteArrayInputStream(save));
+		String username = load.readUTF();
+		if (!username.equalsIgnoreCase(player.getAuthentication().getUsername())) {
+			return false;
+		}
+		player.getAuthentication().setUsername(username);
+		String password = load.readUTF();
+		if (!password.equalsIgnoreCase(player.getAuthentication().getPassword())) {
+			return false;
+		}
+		player.getAuthentication().setPassword(password);
+		player.getLocation().setX(load.readInt());
+		player.getLocation().setY(load.readInt());
+		player.getLocation().setH(load.readInt());
+		player.getAuthentication().setPlayerRights(load.readInt());
+		player.getMobilityManager().running(load.readBoolean());
+		player.getSettings().setAutoRetaliating(load.readBoolean());
+		player.getSettings().setVolume(load.readInt());
+		player.getSettings().setSound(load.readInt());
+		player.getSettings().setBrightness(load.readInt());
+		for (int i = 0; i < player.getAuthentication().appearanceIndex.length; i++) {
+			player.getAuthentication().setPlayerAppearanceIndex(i, load.readInt());
+		}
+		for (int i = 0; i < player.getSkills().getPlayerLevel().length; i++) {
+			player.getSkills().getPlayerLevel()[i] = load.readInt();
+		}
+		for (int i = 0; i < player.getSkills().getPlayerExp().length; i++) {
+			player.getSkills().getPlayerExp()[i] = load.readInt();
+		}
+		readLegacyContainer(load, player.getInventory(), 28);
+		readLegacyContainer(load, player.getEquipment(), 14);
+		readLegacyContainer(load, player.getBanking(), 352);
+		for (int i = 0; i < player.getPrivateMessaging().getFriends().length; i++) {
+			player.getPrivateMessaging().getFriends()[i] = load.readLong();
+		}
+		for (int i = 0; i < player.getPrivateMessaging().getIgnores().length; i++) {
+			player.getPrivateMessaging().getIgnores()[i] = load.readLong();
+		}
+		return true;
+	}
+
+	private static void readLegacyContainer(DataInputStream load, Container container,
+			int slots) throws IOException {
+		for (int i = 0; i < slots; i++) {
+			int id = load.readInt();
+			if (id != 65535) {
+				container.set(i, new Item(id, load.readInt()));
+			}
+		}
+	}
+
+	/**
+	 * Writes the occupied slots of a container, each as its gap since the
+	 * previous one, its item and its amount.
+	 */
+	private static void writeContainer(ByteArrayOutputStream out, Container container) {
+		Item[] items = container.items();
+		int count = 0;
+		for (Item item : items) {
+			if (item != null && item.getIndex() >= 0) {
+				count++;
+			}
+		}
+		writeVarint(out, count);
+		int previous = -1;
+		for (int slot = 0; slot < items.length; slot++) {
+			Item item = items[slot];
+			if (item != null && item.getIndex() >= 0) {
+				writeVarint(out, slot - previous - 1);
+				writeVarint(out, item.getIndex());
+				writeVarint(out, item.getAmount());
+				previous = slot;
+			}
+		}
+	}
+
+	private static void readContainer(ByteBuffer in, Container container) throws IOException {
+		int count = readVarint(in);
+		int slot = -1;
+		for (int i = 0; i < count; i++) {
+			slot += readVarint(in) + 1;
+			if (slot >= container.capacity()) {
+				throw new IOException("Container slot " + slot + " out of range");
+			}
+			int id = readVarint(in);
+			container.set(slot, id, readVarint(in));
+		}
+	}
+
+	/**
+	 * Writes the non-empty entries of a friend or ignore list the same way as
+	 * a container, keeping their slots.
+	 */
+	private static void writeNames(ByteArrayOutputStream out, long[] names) {
+		int count = 0;
+		for (long name : names) {
+			if (name != 0) {
+				count++;
+			}
+		}
+		writeVarint(out, count);
+		int previous = -1;
+		for (int slot = 0; slot < names.length; slot++) {
+			if (names[slot] != 0) {
+				writeVarint(out, slot - previous - 1);
+				writeVarlong(out, names[slot]);
+				previous = slot;
+			}
+		}
+	}
+
+	private static void readNames(ByteBuffer in, long[] names) throws IOException {
+		int count = readVarint(in);
+		int slot = -1;
+		for (int i = 0; i < count; i++) {
+			slot += readVarint(in) + 1;
+			if (slot >= names.length) {
+				throw new IOException("Name slot " + slot + " out of range");
+			}
+			names[slot] = readVarlong(in);
+		}
+	}
+
+	private static void writeArray(ByteArrayOutputStream out, int[] values) {
+		writeVarint(out, values.length);
+		for (int value : values) {
+			writeVarint(out, value);
+		}
+	}
+
+	/**
+	 * Reads an array written by {@link #writeArray}. Values past the end of
+	 * the array are skipped, so saves survive a shorter array.
+	 */
+	private static void readArray(ByteBuffer in, int[] values) throws IOException {
+		int length = readVarint(in);
+		for (int i = 0; i < length; i++) {
+			int value = readVarint(in);
+			if (i < values.length) {
+				values[i] = value;
+			}
+		}
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	private static String readString(ByteBuffer in) throws IOException {
+		int length = readVarint(in);
+		if (length > in.remaining()) {
+			throw new IOException("String length " + length + " out of range");
+		}
+		String value = new String(in.array(), in.arrayOffset() + in.position(),
+				length, StandardCharsets.UTF_8);
+		in.position(in.position() + length);
+		return value;
+	}
+
+	/**
+	 * Writes an int seven bits at a time, low bits first, the top bit of each
+	 * byte set if more follow. Negative values take five bytes.
+	 */
+	private static void writeVarint(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write(value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(ByteBuffer in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private static void writeVarlong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long readVarlong(ByteBuffer in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			int b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varlong");
+	}
+
+	/**
+	 * Deflates a body.
+	 *
+	 * @return the deflated body, or null if it came out no smaller
+	 */
+	private static byte[] deflate(byte[] raw) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(raw);
+			deflater.finish();
+			/*
+			 * A byte short of the body, so only a deflated body which is
+			 * smaller fits and finishes
+			 */
+			byte[] deflated = new byte[raw.length - 1];
+			int length = deflater.deflate(deflated);
+			if (!deflater.finished()) {
+				return null;
+			}
+			byte[] result = new byte[length];
+			System.arraycopy(deflated, 0, result, 0, length);
+			return result;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(byte[] save, int offset, int length, int rawLength)
+			throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(save, offset, length);
+			byte[] raw = new byte[rawLength];
+			if (inflater.inflate(raw) != rawLength || !inflater.finished()) {
+				throw new IOException("Corrupt compressed save");
+			}
+			return raw;
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt compressed save", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+}
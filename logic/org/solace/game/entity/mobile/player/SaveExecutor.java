@@ -0,0 +1,366 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.game.entity.mobile.player;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import org.solace.metrics.Metrics;
+import org.solace.metrics.Metrics.Counter;
+import org.solace.util.Constants;
+
+/**
+ * Writes save files on a dedicated worker, away from the game cycle. A save
+ * is encoded by whoever asks for it and reaches the worker as bytes, so the
+ * worker never reads a player's state. Saving a player again before their
+ * last save is written replaces it, and a save identical to the player's last
+ * one is skipped.
+ * <p>
+ * The worker writes whatever is waiting as one batch: every save goes to a
+ * temporary file which is forced to disk, and only once every file of the
+ * batch is forced is each renamed over the old save, after which the
+ * directories holding them are forced. A save file is therefore always a
+ * whole save, old or new. Saves which could not be written are tried again
+ * after a delay, which grows for as long as they keep failing.
+ *
+ * @author Faris
+ */
+public class SaveExecutor {
+
+	private static final Logger logger = Logger.getLogger(SaveExecutor.class.getName());
+
+	/**
+	 * The wait before saves which could not be written are tried again,
+	 * doubled each time they fail again, up to the maximum.
+	 */
+	private static final long RETRY_DELAY = 100,
+			MAXIMUM_RETRY_DELAY = TimeUnit.SECONDS.toMillis(30);
+
+	/**
+	 * Guards the saves waiting and being written, and the save checksums of
+	 * the players.
+	 */
+	private static final Object lock = new Object();
+
+	/**
+	 * Saves waiting for the worker, by file, oldest first.
+	 */
+	private static final Map<String, Save> pending = new LinkedHashMap<String, Save>();
+
+	/**
+	 * Saves in the batch the worker is writing, by file.
+	 */
+	private static final Map<String, Save> writing = new HashMap<String, Save>();
+
+	/**
+	 * Set once no more saves are taken.
+	 */
+	private static boolean terminated;
+
+	/**
+	 * Files whose last write failed, logged only the first time. Only used
+	 * by the worker.
+	 */
+	private static final Set<String> failing = new HashSet<String>();
+
+	/**
+	 * The worker writing the saves.
+	 */
+	private static final Thread worker = new Thread(new Runnable() {
+		@Override
+		public void run() {
+			work();
+		}
+	}, "SaveWorker");
+
+	static {
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * A save handed to the worker.
+	 */
+	private static final class Save {
+
+		private final Player player;
+		private final byte[] data;
+		private final long checksum;
+
+		private Save(Player player, byte[] data, long checksum) {
+			this.player = player;
+			this.data = data;
+			this.checksum = checksum;
+		}
+
+	}
+
+	/**
+	 * Gets the save file of a player.
+	 *
+	 * @param username
+	 *            the player's username
+	 *
+	 * @return the file
+	 */
+	public static File file(String username) {
+		return new File(Constants.PLAYER_SAVE_DIRECTORY
+				+ username.toLowerCase().charAt(0) + "/" + username + ".dat");
+	}
+
+	/**
+	 * Hands a player's save to the worker, unless it matches their last one.
+	 * Waits only if the queue is full.
+	 *
+	 * @param player
+	 *            the player
+	 * @param data
+	 *            the encoded save
+	 */
+	public static void submit(Player player, byte[] data) {
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		long checksum = crc.getValue();
+		String file = file(player.getAuthentication().getUsername()).getPath();
+		synchronized (lock) {
+			if (player.getSaveChecksum() == checksum) {
+				Metrics.increment(Counter.SAVES_SKIPPED);
+				return;
+			}
+			if (terminated) {
+				logger.warning("Save of " + file + " submitted after shutdown");
+				return;
+			}
+			while (pending.size() >= Constants.SAVE_QUEUE_CAPACITY
+					&& !pending.containsKey(file)) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					/*
+					 * Queued over the capacity rather than lost
+					 */
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			if (pending.put(file, new Save(player, data, checksum)) != null) {
+				Metrics.increment(Counter.SAVES_SKIPPED);
+			}
+			player.setSaveChecksum(checksum);
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Reads a player's save, the newest one if it is still waiting to be
+	 * written.
+	 *
+	 * @param username
+	 *            the player's username
+	 *
+	 * @return the save, or null if the player has none
+	 *
+	 * @throws IOException
+	 *             if the save file could not be read
+	 */
+	public static byte[] read(String username) throws IOException {
+		File file = file(username);
+		synchronized (lock) {
+			Save save = pending.get(file.getPath());
+			if (save == null) {
+				save = writing.get(file.getPath());
+			}
+			if (save != null) {
+				return save.data;
+			}
+		}
+		if (!file.exists()) {
+			return null;
+		}
+		return Files.readAllBytes(file.toPath());
+	}
+
+	/**
+	 * Writes batches until terminated and drained.
+	 */
+	private static void work() {
+		long delay = 0;
+		for (;;) {
+			Map<String, Save> batch;
+			synchronized (lock) {
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+				long remaining;
+				while (!terminated && (remaining = deadline - System.nanoTime()) > 0) {
+					try {
+						lock.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+					} catch (InterruptedException e) {
+					}
+				}
+				while (pending.isEmpty() && !terminated) {
+					try {
+						lock.wait();
+					} catch (InterruptedException e) {
+					}
+				}
+				if (pending.isEmpty()) {
+					lock.notifyAll();
+					return;
+				}
+				batch = new LinkedHashMap<String, Save>(pending);
+				pending.clear();
+				writing.putAll(batch);
+				lock.notifyAll();
+			}
+			Set<String> failed = write(batch);
+			synchronized (lock) {
+				writing.clear();
+				for (String file : failed) {
+					if (pending.containsKey(file)) {
+						continue;
+					}
+					Save save = batch.get(file);
+					if (!terminated) {
+						pending.put(file, save);
+					} else {
+						/*
+						 * Given up on, so the same save submitted again is
+						 * not skipped as unchanged
+						 */
+						if (save.player.getSaveChecksum() == save.checksum) {
+							save.player.setSaveChecksum(-1);
+						}
+						logger.severe("Gave up on saving " + file);
+					}
+				}
+			}
+			delay = failed.isEmpty() ? 0 : Math.min(Math.max(delay * 2, RETRY_DELAY),
+					MAXIMUM_RETRY_DELAY);
+		}
+	}
+
+	/**
+	 * Writes a batch of saves, each to a temporary file forced to disk before
+	 * any save is replaced.
+	 *
+	 * @return the files which could not be saved
+	 */
+	private static Set<String> write(Map<String, Save> batch) {
+		Set<String> failed = new HashSet<String>();
+		List<String> written = new ArrayList<String>(batch.size());
+		for (Map.Entry<String, Save> save : batch.entrySet()) {
+			Path file = Paths.get(save.getKey());
+			try {
+				Files.createDirectories(file.getParent());
+				try (FileChannel channel = FileChannel.open(temporary(file),
+						StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+					ByteBuffer data = ByteBuffer.wrap(save.getValue().data);
+					while (data.hasRemaining()) {
+						channel.write(data);
+					}
+					channel.force(true);
+				}
+				written.add(save.getKey());
+			} catch (IOException e) {
+				fail(save.getKey(), "write", e, failed);
+			}
+		}
+		Set<Path> directories = new HashSet<Path>();
+		for (String file : written) {
+			Path path = Paths.get(file);
+			try {
+				replace(temporary(path), path);
+				directories.add(path.getParent());
+				Metrics.increment(Counter.SAVES_WRITTEN);
+				if (failing.remove(file)) {
+					logger.info("Saved " + file + " after earlier failures");
+				}
+			} catch (IOException e) {
+				fail(file, "replace", e, failed);
+			}
+		}
+		for (Path directory : directories) {
+			try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+				channel.force(true);
+			} catch (IOException e) {
+				/*
+				 * Not every platform can flush a directory, the renames are
+				 * then as durable as it makes them
+				 */
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Records a save which could not be written, logging it only if its last
+	 * write succeeded.
+	 */
+	private static void fail(String file, String action, IOException e, Set<String> failed) {
+		failed.add(file);
+		if (failing.add(file)) {
+			logger.log(Level.SEVERE, "Could not " + action + " " + file
+					+ ", retrying until it is saved", e);
+		}
+	}
+
+	private static Path temporary(Path file) {
+		return file.resolveSibling(file.getFileName() + ".tmp");
+	}
+
+	private static void replace(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Stops taking saves and waits for those already taken to be written.
+	 */
+	public static void terminate() {
+		synchronized (lock) {
+			terminated = true;
+			lock.notifyAll();
+		}
+		try {
+			worker.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -15,6 +15,7 @@
  */
 package org.solace.game.entity.mobile.player.command.impl;
 
+import org.solace.game.entity.UpdateFlags.UpdateFlag;
 import org.solace.game.content.skills.SkillHandler;
 import org.solace.game.entity.mobile.player.Player;
 import org.solace.game.entity.mobile.player.PrivilegeRank;
@@ -33,6 +34,7 @@ public class MasterStatsCommand extends Command {
             player.getSkills().getPlayerExp()[i] = player.getSkills().getXPForLevel(99);
             player.getSkills().refreshSkill(i);
         }
+        player.getUpdateFlags().flag(UpdateFlag.APPEARANCE);
     }
 
     @Override
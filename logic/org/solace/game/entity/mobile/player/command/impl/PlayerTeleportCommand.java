@@ -30,7 +30,7 @@ public class PlayerTeleportCommand extends Command {
     public void handle(Player player, String command) {
         String[] args = command.split(" ");
         String secondWord = args[1].toLowerCase();
-        for (Player otherPlayer : Game.getPlayerRepository().values()) {
+        for (Player otherPlayer : Game.getPlayerRepository()) {
             if (otherPlayer == null)
                 continue;
             if (otherPlayer.getAuthentication().getUsername().equalsIgnoreCase(secondWord)) {
@@ -28,7 +28,7 @@ public class PlayersCheckCommand extends Command {
 
     @Override
     public void handle(Player player, String command) {
-        player.getPacketDispatcher().sendMessage("There are currently "+ Game.getPlayerRepository().values().size() + " player(s) online.");
+        player.getPacketDispatcher().sendMessage("There are currently "+ Game.getPlayerRepository().size() + " player(s) online.");
     }
 
     @Override
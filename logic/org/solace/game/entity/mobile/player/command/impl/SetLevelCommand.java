@@ -15,6 +15,7 @@
  */
 package org.solace.game.entity.mobile.player.command.impl;
 
+import org.solace.game.entity.UpdateFlags.UpdateFlag;
 import org.solace.game.entity.mobile.player.Player;
 import org.solace.game.entity.mobile.player.PrivilegeRank;
 import org.solace.game.entity.mobile.player.command.Command;
@@ -34,6 +35,7 @@ public class SetLevelCommand extends Command {
 	player.getSkills().getPlayerLevel()[skill] = level;
         player.getSkills().getPlayerExp()[skill] = player.getSkills().getXPForLevel(level);
         player.getSkills().refreshSkill(skill);
+        player.getUpdateFlags().flag(UpdateFlag.APPEARANCE);
     }
 
     @Override
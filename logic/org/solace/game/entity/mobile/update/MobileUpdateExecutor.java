@@ -15,35 +15,34 @@
  */
 package org.solace.game.entity.mobile.update;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.ThreadFactory;
-import org.solace.util.SolaceThreadFactory;
+import org.solace.util.NamedThreadFactory;
 
 /**
+ * Owns the long lived client synchronization engine. The worker pool, phaser
+ * and synchronizer are created once and reused every cycle.
  *
  * @author Faris
  */
 public class MobileUpdateExecutor {
     
     /**
-     * The executor service.
+     * The executor service, sized to the number of available cores.
      */
     private final ExecutorService executor;
 
     /**
-     * The phaser.
+     * The phaser, reused as the barrier between every update phase.
      */
     private final Phaser phaser = new Phaser(1);
-    
+
     /**
-     * List of awaiting updates
+     * The synchronizer which runs the pre, player, post and NPC phases
      */
-    public static List<MobileUpdateTask> awaitingUpdate = new LinkedList();
+    private final MobileUpdateTask synchronizer;
     
     /**
      * The instance
@@ -58,34 +57,33 @@ public class MobileUpdateExecutor {
         return instance;
     }
     
+    /**
+     * Creates the synchronization engine, machines which don't benefit from
+     * multiple cores fall back to the sequential synchronizer
+     */
     public MobileUpdateExecutor(){
-        final int processors = Runtime.getRuntime().availableProcessors() * 4;
-        final ThreadFactory factory = new SolaceThreadFactory();
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final ThreadFactory factory = new NamedThreadFactory("ClientSynchronizer");
         executor = Executors.newFixedThreadPool(processors, factory);
+        if (processors > 1) {
+            synchronizer = new ParallelUpdateTask(executor, phaser);
+        } else {
+            synchronizer = new SequentialUpdateTask();
+        }
     }
     
     /**
-     * Submits a Player Update into the awaiting list
-     * @param task 
+     * Executes the update task for each submitted Client
      */
-    public static void includeTask(MobileUpdateTask task){
-        awaitingUpdate.add(task);
+    public void executeUpdates(){
+        synchronizer.synchronize();
     }
     
     /**
-     * Executes the update task for each submitted Client
+     * Stops the synchronization worker pool
      */
-    public void executeUpdates(){
-        phaser.bulkRegister(awaitingUpdate.size());
-        Iterator<MobileUpdateTask> it = awaitingUpdate.iterator();
-        while(it.hasNext() && !awaitingUpdate.isEmpty()){
-            MobileUpdateTask task = it.next();
-            executor.submit(new PhasedMobileUpdate(phaser, task));
-            it.remove();
-        }
-        phaser.arriveAndAwaitAdvance();
+    public void terminate(){
+        executor.shutdown();
     }
-    
-    
 
 }
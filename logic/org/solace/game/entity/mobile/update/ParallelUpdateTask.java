@@ -15,18 +15,15 @@
  */
 package org.solace.game.entity.mobile.update;
 
-import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Phaser;
-import java.util.concurrent.ThreadFactory;
 import org.solace.game.Game;
 import org.solace.game.entity.mobile.npc.NPC;
 import org.solace.game.entity.mobile.player.Player;
-import org.solace.game.entity.mobile.update.impl.PlayerUpdateTask;
-import org.solace.game.entity.mobile.update.PostUpdateExecutor;
-import org.solace.game.entity.mobile.update.PreUpdateExecutor;
-import org.solace.util.NamedThreadFactory;
+import org.solace.game.entity.mobile.update.impl.NPCUpdateTask;
+import org.solace.metrics.Metrics;
+import org.solace.metrics.Metrics.Phase;
+import org.solace.util.MobileList;
 
 /**
  *
@@ -42,59 +39,79 @@ public class ParallelUpdateTask extends MobileUpdateTask {
 	/**
 	 * The phaser.
 	 */
-	private final Phaser phaser = new Phaser(1);
+	private final Phaser phaser;
 
 	/**
-	 * Creates the parallel client synchronizer backed by a thread pool with a
-	 * number of threads equal to the number of processing cores available
-	 * (this is found by the {@link Runtime#availableProcessors()} method.
+	 * Creates the parallel client synchronizer backed by the shared worker
+	 * pool and phaser owned by the {@link MobileUpdateExecutor}.
+	 *
+	 * @param executor The executor service.
+	 * @param phaser The phaser.
 	 */
-	public ParallelUpdateTask() {
-		int processors = Runtime.getRuntime().availableProcessors();
-		ThreadFactory factory = new NamedThreadFactory("ClientSynchronizer");
-		executor = Executors.newFixedThreadPool(processors, factory);
+	public ParallelUpdateTask(ExecutorService executor, Phaser phaser) {
+		this.executor = executor;
+		this.phaser = phaser;
 	}
 
 	@Override
 	public void synchronize() {
-		Map<Integer ,Player> players = Game.getPlayerRepository();
+		MobileList<Player> players = Game.getPlayerRepository();
+		MobileList<NPC> npcs = Game.getNpcRepository();
 		int playerCount = players.size();
+		long time = System.nanoTime();
 
 		phaser.bulkRegister(playerCount);
-		for (Player player : players.values()) {
+		for (int i = 0; i < players.size(); i++) {
+			Player player = players.at(i);
 			MobileUpdateTask task = new PreUpdateExecutor(player);
 			executor.submit(new PhasedMobileUpdate(phaser, task));
 		}
 		phaser.arriveAndAwaitAdvance();
+		time = Metrics.record(Phase.PRE_UPDATE, time);
 
 		phaser.bulkRegister(playerCount);
-		for (Player player : players.values()) {
+		for (int i = 0; i < players.size(); i++) {
+			Player player = players.at(i);
 			MobileUpdateTask task = player.getUpdater();
 			executor.submit(new PhasedMobileUpdate(phaser, task));
 		}
 		phaser.arriveAndAwaitAdvance();
+		time = Metrics.record(Phase.PLAYER_UPDATE, time);
 
 		phaser.bulkRegister(playerCount);
-		for (Player player : players.values()) {
+		for (int i = 0; i < players.size(); i++) {
+			Player player = players.at(i);
 			MobileUpdateTask task = new PostUpdateExecutor(player);
 			executor.submit(new PhasedMobileUpdate(phaser, task));
 		}
 		phaser.arriveAndAwaitAdvance();
+		time = Metrics.record(Phase.POST_UPDATE, time);
                 
+                for (int i = 0; i < npcs.size(); i++) {
+                        NPC npc = npcs.at(i);
+                        if (npc.getUpdateFlags().isUpdateRequired()) {
+                                npc.setCachedUpdateBlock(NPCUpdateTask.encodeUpdateBlock(npc));
+                        }
+                }
                 phaser.bulkRegister(playerCount);
-                for (Player player : players.values()) {   
+                for (int i = 0; i < players.size(); i++) {
+                        Player player = players.at(i);
                         MobileUpdateTask task = player.getNpcUpdating();
                         executor.submit(new PhasedMobileUpdate(phaser, task));
                 }
                 phaser.arriveAndAwaitAdvance();
+                Metrics.record(Phase.NPC_UPDATE, time);
                 
-                for (Player player : players.values()) {
+                for (int i = 0; i < players.size(); i++) {
+			Player player = players.at(i);
 			player.getUpdater().resetUpdateVars();
 		}
                 
-                for (NPC npc : Game.getNpcRepository().values()) {
+                for (int i = 0; i < npcs.size(); i++) {
+                    NPC npc = npcs.at(i);
                     try {
                             npc.getUpdateFlags().reset();
+                            npc.setCachedUpdateBlock(null);
                     } catch (Exception e) {
                             e.printStackTrace();
                     }
@@ -15,7 +15,9 @@
  */
 package org.solace.game.entity.mobile.update;
 
+import org.solace.game.entity.UpdateFlags.UpdateFlag;
 import org.solace.game.entity.mobile.player.Player;
+import org.solace.game.entity.mobile.update.impl.PlayerUpdateTask;
 
 
 
@@ -56,9 +58,23 @@ public final class PreUpdateExecutor extends MobileUpdateTask {
         return true;
     }
 
+    /**
+     * Encodes the update blocks of the player once for every observer, with
+     * the appearance only re-encoded when it was flagged.
+     */
     @Override
     public void synchronize() {
-        
+        if (player.getUpdateFlags().get(UpdateFlag.APPEARANCE)
+                || player.getCachedAppearance() == null) {
+            player.setCachedAppearance(PlayerUpdateTask.encodeAppearance(player));
+        }
+        boolean updateRequired = player.getUpdateFlags().isUpdateRequired();
+        if (updateRequired) {
+            player.setCachedUpdateBlock(PlayerUpdateTask.encodeUpdateBlock(player, false));
+        }
+        if (updateRequired || player.getCachedForcedUpdateBlock() == null) {
+            player.setCachedForcedUpdateBlock(PlayerUpdateTask.encodeUpdateBlock(player, true));
+        }
     }
 }
 
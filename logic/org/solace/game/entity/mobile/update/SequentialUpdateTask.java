@@ -16,14 +16,16 @@
 package org.solace.game.entity.mobile.update;
 
 
-import java.util.Map;
 import org.solace.game.Game;
 import org.solace.game.entity.mobile.npc.NPC;
 import org.solace.game.entity.mobile.update.impl.NPCUpdateTask;
 import org.solace.game.entity.mobile.player.Player;
+import org.solace.metrics.Metrics;
+import org.solace.metrics.Metrics.Phase;
 import org.solace.game.entity.mobile.update.impl.PlayerUpdateTask;
 import org.solace.game.entity.mobile.update.PostUpdateExecutor;
 import org.solace.game.entity.mobile.update.PreUpdateExecutor;
+import org.solace.util.MobileList;
 
 /**
  *
@@ -33,35 +35,55 @@ public class SequentialUpdateTask extends MobileUpdateTask {
 
     @Override
     public void synchronize() {
-        Map<Integer, Player> players = Game.getPlayerRepository();
+        MobileList<Player> players = Game.getPlayerRepository();
+        MobileList<NPC> npcs = Game.getNpcRepository();
+        long time = System.nanoTime();
 
-		for (Player player : players.values()) {
+		for (int i = 0; i < players.size(); i++) {
+			Player player = players.at(i);
 			MobileUpdateTask task = new PreUpdateExecutor(player);
                         task.run();
 		}
+		time = Metrics.record(Phase.PRE_UPDATE, time);
 
-		for (Player player : players.values()) {
+		for (int i = 0; i < players.size(); i++) {
+			Player player = players.at(i);
 			MobileUpdateTask task = player.getUpdater();
                         task.synchronize();
 		}
+		time = Metrics.record(Phase.PLAYER_UPDATE, time);
 
-		for (Player player : players.values()) {
+		for (int i = 0; i < players.size(); i++) {
+			Player player = players.at(i);
 			MobileUpdateTask task = new PostUpdateExecutor(player);
                         task.run();
 		}
-                for (Player player : players.values()) {
+		time = Metrics.record(Phase.POST_UPDATE, time);
+                for (int i = 0; i < players.size(); i++) {
+			Player player = players.at(i);
 			player.getUpdater().resetUpdateVars();
 		}
-                for (Player player : players.values()) {   
+		for (int i = 0; i < npcs.size(); i++) {
+			NPC npc = npcs.at(i);
+			if (npc.getUpdateFlags().isUpdateRequired()) {
+				npc.setCachedUpdateBlock(NPCUpdateTask.encodeUpdateBlock(npc));
+			}
+		}
+                for (int i = 0; i < players.size(); i++) {
+                        Player player = players.at(i);
                         MobileUpdateTask task = player.getNpcUpdating();
                         task.run();
                 }
-		for (Player player : Game.getPlayerRepository().values()) {
+                Metrics.record(Phase.NPC_UPDATE, time);
+		for (int i = 0; i < players.size(); i++) {
+				Player player = players.at(i);
 				player.getUpdater().resetUpdateVars();
 		}
-		for (NPC npc : Game.getNpcRepository().values()) {
+		for (int i = 0; i < npcs.size(); i++) {
+                    NPC npc = npcs.at(i);
                     try {
                             npc.getUpdateFlags().reset();
+                            npc.setCachedUpdateBlock(null);
                     } catch (Exception e) {
                             e.printStackTrace();
                     }
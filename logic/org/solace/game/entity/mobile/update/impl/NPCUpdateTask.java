@@ -15,8 +15,8 @@
  */
 package org.solace.game.entity.mobile.update.impl;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import org.solace.game.Game;
 import org.solace.game.entity.UpdateFlags.UpdateFlag;
@@ -25,16 +25,32 @@ import org.solace.game.entity.mobile.update.MobileUpdateTask;
 import org.solace.game.entity.mobile.player.Player;
 import org.solace.game.map.Location;
 import org.solace.network.packet.PacketBuilder;
+import org.solace.util.Constants;
 
 public class NPCUpdateTask extends MobileUpdateTask {
 
+	/**
+	 * The most npcs the client keeps track of, its list size is sent in 8
+	 * bits.
+	 */
+	private static final int MAXIMUM_LOCAL_NPCS = 255;
+
 	private Player player;
 
-	private List<NPC> localNpcs;
+	/**
+	 * The npcs the client knows about, in the order it keeps them.
+	 */
+	private final List<NPC> localNpcs = new ArrayList<NPC>();
+
+	/**
+	 * The indices of the npcs in {@link #localNpcs}.
+	 */
+	private final BitSet localIndices = new BitSet(Constants.SERVER_MAX_NPCS + 1);
+
+	private final List<NPC> nearbyNpcs = new ArrayList<NPC>();
 
 	public NPCUpdateTask(Player player) {
 		this.player = player;
-		localNpcs = new LinkedList<>();
 	}
 
 	/**
@@ -45,9 +61,6 @@ public class NPCUpdateTask extends MobileUpdateTask {
 		PacketBuilder out = PacketBuilder.allocate(4096);
 		PacketBuilder block = PacketBuilder.allocate(2048);
 
-		if (out == null || block == null) {
-                    return;
-                }
 		/*
 		 * Initializes the npc updating packet
 		 */
@@ -56,48 +69,52 @@ public class NPCUpdateTask extends MobileUpdateTask {
 		/*
 		 * Writes the local npc list size
 		 */
-		out.putBits(8, player.getNpcUpdating().localNpcs.size());
+		out.putBits(8, localNpcs.size());
 		/*
-		 * Iterates over all of the npcs in the localNpcs list
+		 * Updates the npcs the client knows about, compacting the list over
+		 * those removed so the order stays the client's
 		 */
-		for (Iterator<NPC> iterator = localNpcs.iterator(); iterator.hasNext();) {
-			/*
-			 * Constructs a single npc from the iterator
-			 */
-			NPC n = iterator.next();
-			/*
-			 * Checks if the npc is visible and within distance and the player
-			 * has the npc in his list
-			 */
+		int kept = 0;
+		for (int i = 0; i < localNpcs.size(); i++) {
+			NPC n = localNpcs.get(i);
 			if (n.isNpcVisible()
-					&& player.getLocation().withinDistance(n.getLocation())
-					&& player.getNpcUpdating().localNpcs.contains(n)) {
+					&& Game.getNpcRepository().contains(n)
+					&& player.getLocation().withinDistance(n.getLocation())) {
 				updateNpcMovement(out, n);
-				appendNpcUpdateBlock(block, n);
+				if (n.getUpdateFlags().isUpdateRequired()) {
+					appendNpcUpdateBlock(block, n);
+				}
+				localNpcs.set(kept++, n);
 			} else {
 				/*
 				 * Removes the npc from the list
 				 */
 				out.putBit(true);
 				out.putBits(2, 3);
-				iterator.remove();
+				localIndices.clear(n.getIndex());
+			}
+		}
+		localNpcs.subList(kept, localNpcs.size()).clear();
+
+		for (NPC npc : Game.getNpcGrid().collect(player.getLocation(), 15, nearbyNpcs)) {
+			if (localNpcs.size() >= MAXIMUM_LOCAL_NPCS) {
+				break;
+			}
+			if (!npc.isNpcVisible() || localIndices.get(npc.getIndex())) {
+				continue;
+			}
+			if (player.getLocation().withinDistance(npc.getLocation())) {
+				/*
+				 * Adds a new npc to the list
+				 */
+				localNpcs.add(npc);
+				localIndices.set(npc.getIndex());
+				addNPC(out, npc);
+				if (npc.getUpdateFlags().isUpdateRequired()) {
+					appendNpcUpdateBlock(block, npc);
+				}
 			}
 		}
-        for (Iterator<NPC> it = Game.getNpcRepository().values().iterator(); it.hasNext();) {
-            NPC npc = it.next();
-            if (npc == null || !npc.isNpcVisible()
-                            || player.getNpcUpdating().localNpcs.contains(npc)) {
-                continue;
-            }
-            if (player.getLocation().withinDistance(npc.getLocation())) {
-                    /*
-                     * Adds a new npc to the list
-                     */
-                    player.getNpcUpdating().localNpcs.add(npc);
-                    addNPC(out, npc);
-                    appendNpcUpdateBlock(block, npc);
-            }
-        }
 		/*
 		 * Sends the status to the client
 		 */
@@ -115,11 +132,13 @@ public class NPCUpdateTask extends MobileUpdateTask {
 		/*
 		 * Writes to the players outstream channel
 		 */
-		out.sendTo(player.channelContext().channel());
+		out.sendTo(player.channelContext());
+		block.release();
 	}
 
 	/**
-	 * Checks if the npc is walking or not
+	 * Writes the movement of a local npc, a single bit if it neither moved
+	 * nor needs an update block.
 	 * 
 	 * @param out
 	 *            The outstream to the client
@@ -127,14 +146,19 @@ public class NPCUpdateTask extends MobileUpdateTask {
 	 *            The npc being updated
 	 */
 	public void updateNpcMovement(PacketBuilder out, NPC npc) {
+		boolean updateRequired = npc.getUpdateFlags().isUpdateRequired();
 		if (npc.getMobilityManager().walkingDirection() == -1) {
-			out.putBits(1, 1);
-			out.putBits(2, 0);
+			if (updateRequired) {
+				out.putBits(1, 1);
+				out.putBits(2, 0);
+			} else {
+				out.putBits(1, 0);
+			}
 		} else {
 			out.putBits(1, 1);
 			out.putBits(2, 1);
 			out.putBits(3, npc.getMobilityManager().walkingDirection());
-			out.putBits(1, 1);
+			out.putBit(updateRequired);
 		}
 	}
 
@@ -147,17 +171,41 @@ public class NPCUpdateTask extends MobileUpdateTask {
 	 */
 	private void addNPC(PacketBuilder out, NPC npc) {
 		out.putBits(14, npc.getIndex());
-		Location delta = new Location(npc.getLocation().getX()
-				- player.getLocation().getX(), npc.getLocation().getY()
-				- player.getLocation().getY());
-		out.putBits(5, delta.getY());
-		out.putBits(5, delta.getX());
+		out.putBits(5, npc.getLocation().getY() - player.getLocation().getY());
+		out.putBits(5, npc.getLocation().getX() - player.getLocation().getX());
 		out.putBits(1, 0);
 		out.putBits(12, npc.getNpcId());
-		out.putBit(true);
+		out.putBit(npc.getUpdateFlags().isUpdateRequired());
 	}
 
+	/**
+	 * Copies the update block of an npc, shared by every player seeing it
+	 * this cycle.
+	 */
 	private void appendNpcUpdateBlock(PacketBuilder block, NPC npc) {
+		byte[] cached = npc.getCachedUpdateBlock();
+		if (cached != null) {
+			block.put(cached);
+		} else {
+			encodeUpdateBlock(block, npc);
+		}
+	}
+
+	/**
+	 * Encodes the update block of an npc once, as every player sees it.
+	 * 
+	 * @param npc
+	 *            the npc, which must require an update
+	 * 
+	 * @return the encoded block
+	 */
+	public static byte[] encodeUpdateBlock(NPC npc) {
+		PacketBuilder block = PacketBuilder.allocate(256);
+		encodeUpdateBlock(block, npc);
+		return PlayerUpdateTask.drain(block);
+	}
+
+	private static void encodeUpdateBlock(PacketBuilder block, NPC npc) {
 
 		/*
 		 * Creates an instance for the update mask
@@ -228,7 +276,7 @@ public class NPCUpdateTask extends MobileUpdateTask {
 	 * @param block
 	 * @param npc
 	 */
-	private void appendHitMask(PacketBuilder block, NPC npc) {
+	private static void appendHitMask(PacketBuilder block, NPC npc) {
 		block.putByteA(npc.getUpdateFlags().getDamage());
 		block.putByteC(npc.getUpdateFlags().getHitType());
 		block.putByteA(getCurrentHP(npc.getHitpoints(), npc.getDefinition()
@@ -241,7 +289,7 @@ public class NPCUpdateTask extends MobileUpdateTask {
 	 * @param out
 	 * @param npc
 	 */
-	public void appendHitMask2(PacketBuilder out, NPC npc) {
+	public static void appendHitMask2(PacketBuilder out, NPC npc) {
 		out.putByteC(npc.getUpdateFlags().getDamage2());
 		out.putByteS(npc.getUpdateFlags().getHitType2());
 		out.putByteS(getCurrentHP(npc.getHitpoints(), npc.getDefinition().getHitpoints(), 100));
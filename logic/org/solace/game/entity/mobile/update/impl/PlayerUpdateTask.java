@@ -15,17 +15,20 @@
  */
 package org.solace.game.entity.mobile.update.impl;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import org.solace.game.Game;
 import org.solace.game.entity.UpdateFlags.UpdateFlag;
 import org.solace.game.entity.mobile.player.Player;
 import org.solace.game.entity.mobile.update.MobileUpdateTask;
+import org.solace.game.entity.mobile.update.PreUpdateExecutor;
 import org.solace.game.item.ItemDefinition;
 import org.solace.game.item.container.impl.Equipment;
 import org.solace.network.packet.PacketBuilder;
+import org.solace.util.Constants;
 import org.solace.util.ProtocolUtils;
 
 /**
@@ -34,16 +37,31 @@ import org.solace.util.ProtocolUtils;
  */
 public class PlayerUpdateTask extends MobileUpdateTask {
 
+	/**
+	 * The most players added to the local list in a single cycle, the rest
+	 * follow over the next cycles so a crowd never overflows the update block.
+	 */
+	private static final int NEW_PLAYERS_PER_CYCLE = 20;
+
 	private Player master;
 	private boolean teleporting = true;
 	private boolean mapRegionChanging = true;
-	private List<Player> localPlayers;
+
+	/**
+	 * The players the client knows about, in the order it keeps them.
+	 */
+	private final List<Player> localPlayers = new ArrayList<Player>();
+
+	/**
+	 * The indices of the players in {@link #localPlayers}.
+	 */
+	private final BitSet localIndices = new BitSet(Constants.SERVER_MAX_PLAYERS + 1);
+	private final List<Player> nearbyPlayers = new ArrayList<Player>();
 	public byte chatText[] = new byte[256];
 	public int chatTextEffects = 0, chatTextColor = 0;
 
 	public PlayerUpdateTask(Player master) {
 		this.master = master;
-		localPlayers = new LinkedList<Player>();
 	}
 
 	public Player getMaster() {
@@ -51,15 +69,18 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 	}
 
 	private void populateRegion(PacketBuilder out, PacketBuilder block) {
-		for (Player player : Game.getPlayerRepository().values()) {
-			if (getMaster().getUpdater().localPlayers.size() >= 255) {
+		int added = 0;
+		for (Player player : Game.getPlayerGrid().collect(
+				getMaster().getLocation(), 15, nearbyPlayers)) {
+			if (localPlayers.size() >= 255 || added >= NEW_PLAYERS_PER_CYCLE) {
 				break;
 			}
-			if (player == getMaster()
-					|| getMaster().getUpdater().localPlayers.contains(player))
+			if (player == getMaster() || localIndices.get(player.getIndex()))
 				continue;
 			if (getMaster().getLocation().withinDistance(player.getLocation())) {
-				getMaster().getUpdater().localPlayers.add(player);
+				localPlayers.add(player);
+				localIndices.set(player.getIndex());
+				added++;
 				addPlayer(out, player);
 				updateGivenPlayer(block, player, true);
 			}
@@ -82,9 +103,14 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		updateGivenPlayer(block, master, false);
 		out.putBits(8, localPlayers.size());
 
-		for (Iterator<Player> i = localPlayers.iterator(); i.hasNext();) {
-			Player player = i.next();
-			if (Game.getPlayerRepository().values().contains(player)
+		/*
+		 * Compacts the list over the players removed, keeping the client's
+		 * order.
+		 */
+		int kept = 0;
+		for (int i = 0; i < localPlayers.size(); i++) {
+			Player player = localPlayers.get(i);
+			if (Game.isRegistered(player)
 					&& !player.getUpdater().teleporting
 					&& player.getLocation().withinDistance(
 							getMaster().getLocation())) {
@@ -92,12 +118,14 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 				if (player.getUpdateFlags().isUpdateRequired()) {
 					updateGivenPlayer(block, player, false);
 				}
+				localPlayers.set(kept++, player);
 			} else {
-				i.remove();
+				localIndices.clear(player.getIndex());
 				out.putBits(1, 1); // Update Requierd
 				out.putBits(2, 3); // Remove Player
 			}
 		}
+		localPlayers.subList(kept, localPlayers.size()).clear();
 		populateRegion(out, block);
 		if (block.buffer().position() > 0) {
 			out.putBits(11, 2047);
@@ -106,19 +134,54 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		} else {
 			out.byteAccess();
 		}
+		block.release();
 		out.finishShortSizedFrame();
-		out.sendTo(master.channelContext().channel());
+		out.sendTo(master.channelContext());
 	}
 
+	/**
+	 * Writes the update block of a player. Blocks of other players are
+	 * copied from the cache filled by the {@link PreUpdateExecutor}.
+	 */
 	public void updateGivenPlayer(PacketBuilder out, Player player,
 			boolean force) {
 		if (!player.getUpdateFlags().isUpdateRequired() && !force) {
 			return;
 		}
-		if (player.hasCachedUpdateBlock() && player != getMaster() && !force) {
-			 out.put(player.getCachedUpdateBlock().buffer());
-			 return;
+		if (player != getMaster()) {
+			byte[] cached = force ? player.getCachedForcedUpdateBlock()
+					: player.getCachedUpdateBlock();
+			if (cached != null) {
+				out.put(cached);
+				return;
+			}
 		}
+		appendUpdateBlock(out, player, force, player != getMaster());
+	}
+
+	/**
+	 * Encodes the update block of a player once, as seen by other players,
+	 * for the cache.
+	 * 
+	 * @param player
+	 *            the player
+	 * @param force
+	 *            whether the block is for players adding this player, which
+	 *            always carries the appearance
+	 * 
+	 * @return the encoded block
+	 */
+	public static byte[] encodeUpdateBlock(Player player, boolean force) {
+		PacketBuilder out = PacketBuilder.allocate(1024);
+		appendUpdateBlock(out, player, force, true);
+		return drain(out);
+	}
+
+	/**
+	 * Writes the update block of a player. Players never see their own chat.
+	 */
+	private static void appendUpdateBlock(PacketBuilder out, Player player,
+			boolean force, boolean chat) {
 		int mask = 0x0;
 		if (player.getUpdateFlags().get(UpdateFlag.FORCE_MOVEMENT)) {
 			mask |= UpdateFlag.FORCE_MOVEMENT.getMask();
@@ -132,8 +195,7 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		if (player.getUpdateFlags().get(UpdateFlag.FORCED_CHAT)) {
 			mask |= UpdateFlag.FORCED_CHAT.getMask();
 		}
-		if (player.getUpdateFlags().get(UpdateFlag.CHAT)
-				&& player != getMaster()) {
+		if (player.getUpdateFlags().get(UpdateFlag.CHAT) && chat) {
 			mask |= UpdateFlag.CHAT.getMask();
 		}
 		if (player.getUpdateFlags().get(UpdateFlag.FACE_ENTITY)) {
@@ -158,7 +220,7 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		} else {
 			out.putByte(mask);
 		}
-		checkRequiredUpdates(out, player, force);
+		checkRequiredUpdates(out, player, force, chat);
 	}
 
 	public void updateThisPlayerMovement(PacketBuilder out) {
@@ -240,8 +302,8 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		out.putBits(5, xPos); // The relative coordinates.
 	}
 
-	private void checkRequiredUpdates(PacketBuilder out, Player player,
-			boolean force) {
+	private static void checkRequiredUpdates(PacketBuilder out, Player player,
+			boolean force, boolean chat) {
 		if (player.getUpdateFlags().get(UpdateFlag.GRAPHICS)) {
 			appendGraphicMask(player, out);
 		}
@@ -251,8 +313,7 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		if (player.getUpdateFlags().get(UpdateFlag.FORCED_CHAT)) {
 			out.putString(player.getUpdateFlags().getForceChatMessage());
 		}
-		if (player.getUpdateFlags().get(UpdateFlag.CHAT)
-				&& player != getMaster()) {
+		if (player.getUpdateFlags().get(UpdateFlag.CHAT) && chat) {
 			updatePlayerChat(out, player);
 		}
 		if (player.getUpdateFlags().get(UpdateFlag.FACE_ENTITY)) {
@@ -271,13 +332,6 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		if (player.getUpdateFlags().get(UpdateFlag.HIT_2)) {
 			updatingHit2(out, player);
 		}
-
-		/*
-		 * Now it is over, cache the block if we can.
-		 */
-		if (player != getMaster() && !force) {
-			player.setCachedUpdateBlock(out);
-		}
 	}
 
 	/**
@@ -288,7 +342,7 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 	 * @param player
 	 *            The player instance
 	 */
-	public void updateHit(PacketBuilder out, Player player) {
+	public static void updateHit(PacketBuilder out, Player player) {
 		out.putByte(player.getUpdateFlags().getDamage());
 		out.putByteA(player.getUpdateFlags().getHitType());
 		out.putByteC(player.getSkills().getPlayerLevel()[3]);
@@ -296,7 +350,7 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 				player.getSkills().getPlayerExp()[3]));
 	}
 
-	private void updatingHit2(PacketBuilder out, Player player) {
+	private static void updatingHit2(PacketBuilder out, Player player) {
 		out.putByte(player.getUpdateFlags().getDamage2());
 		out.putByteS(player.getUpdateFlags().getHitType2());
 		out.putByte(player.getSkills().getPlayerLevel()[3]);
@@ -304,7 +358,7 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 				player.getSkills().getPlayerExp()[3]));
 	}
 
-	public void updatePlayerChat(PacketBuilder out, Player player) {
+	public static void updatePlayerChat(PacketBuilder out, Player player) {
 		int effects = ((player.getUpdater().chatTextColor & 0xff) << 8)
 				+ (player.getUpdater().chatTextEffects & 0xff);
 		out.putLEShort(effects);
@@ -313,7 +367,29 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		out.put(player.getUpdater().chatText);
 	}
 
-	public void updatePlayerAppearance(PacketBuilder out, Player player) {
+	/**
+	 * Writes the appearance of a player, encoding it only if the cache was
+	 * not filled this cycle.
+	 */
+	public static void updatePlayerAppearance(PacketBuilder out, Player player) {
+		byte[] appearance = player.getCachedAppearance();
+		if (appearance == null) {
+			appearance = encodeAppearance(player);
+			player.setCachedAppearance(appearance);
+		}
+		out.putByteC(appearance.length);
+		out.put(appearance);
+	}
+
+	/**
+	 * Encodes the appearance of a player for the cache.
+	 * 
+	 * @param player
+	 *            the player
+	 * 
+	 * @return the encoded appearance
+	 */
+	public static byte[] encodeAppearance(Player player) {
 		PacketBuilder props = PacketBuilder.allocate(128);
 		props.putByte(player.getAuthentication().playerGender());
 		props.putByte(player.getPrayerIcon());
@@ -418,8 +494,19 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		props.putLong(ProtocolUtils.getLongString(player.getAuthentication().getUsername()));
 		props.putByte(player.getSkills().calculateCombatLevel()); // send combat level
 		props.putShort(0); // games room title crap
-		out.putByteC(props.buffer().position());
-		out.put(props.buffer());
+		return drain(props);
+	}
+
+	/**
+	 * Copies what was written to a builder and releases it.
+	 */
+	static byte[] drain(PacketBuilder builder) {
+		ByteBuffer buffer = builder.buffer();
+		byte[] bytes = new byte[buffer.position()];
+		buffer.flip();
+		buffer.get(bytes);
+		builder.release();
+		return bytes;
 	}
 
 	/**
@@ -428,7 +515,7 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 	 * @param player
 	 * @param out
 	 */
-	public void appendGraphicMask(Player player, PacketBuilder out) {
+	public static void appendGraphicMask(Player player, PacketBuilder out) {
 		if (player.getGraphic() != null) {
 			out.putLEShort(player.getGraphic().getId());
 			out.putIntTest(player.getGraphic().getValue());
@@ -441,7 +528,7 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 	 * @param player
 	 * @param out
 	 */
-	private void appendAnimationMask(Player player, PacketBuilder out) {
+	private static void appendAnimationMask(Player player, PacketBuilder out) {
 		if (player.getAnimation() == null) {
 			return;
 		}
@@ -449,11 +536,6 @@ public class PlayerUpdateTask extends MobileUpdateTask {
 		out.putByteC(player.getAnimation().getDelay());
 	}
 
-	public PlayerUpdateTask localPlayers(List<Player> localPlayers) {
-		this.localPlayers = localPlayers;
-		return this;
-	}
-
 	public PlayerUpdateTask setMapRegionChanging(boolean status) {
 		this.mapRegionChanging = status;
 		return this;
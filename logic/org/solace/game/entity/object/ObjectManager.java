@@ -42,9 +42,8 @@ public class ObjectManager {
      */
     public static void registerObject(final GameObject o) {
         object.add(o);
-        for (Player player : Game.getPlayerRepository().values()) {
-            if (player != null
-                    && o.getLocation().withinDistance(player.getLocation(), 16)) {
+        for (Player player : Game.getPlayerGrid().collect(o.getLocation(), 16)) {
+            if (o.getLocation().withinDistance(player.getLocation(), 16)) {
                 player.getPacketDispatcher().sendObject(o, false);
                 expireObject(o, player);
             }
@@ -0,0 +1,225 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.game.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.solace.game.entity.mobile.Mobile;
+
+/**
+ * Spatial index which buckets mobiles by the 8x8 chunk and height they stand
+ * on, so nearby mobiles can be found without scanning a whole repository.
+ * Chunks are grouped per 64x64 region and only created once a region is
+ * first entered.
+ *
+ * Queries are lock free and may run on any thread, moves are serialised on
+ * the grid.
+ *
+ * @author Faris
+ */
+public class ChunkGrid<E extends Mobile> {
+
+    /**
+     * Number of regions covered along each axis and the number of heights
+     */
+    private static final int REGIONS_X = 64, REGIONS_Y = 256, HEIGHTS = 4;
+
+    /**
+     * Key given to mobiles which are not indexed
+     */
+    public static final int NOT_INDEXED = -1;
+
+    /**
+     * The chunks of every region entered so far, indexed by region
+     */
+    private final AtomicReferenceArray<Chunk[]> regions = new AtomicReferenceArray<Chunk[]>(
+            REGIONS_X * REGIONS_Y * HEIGHTS);
+
+    /**
+     * Adds a mobile to the chunk it is currently standing on
+     *
+     * @param mobile
+     */
+    public synchronized void add(E mobile) {
+        if (mobile.chunkKey() != NOT_INDEXED) {
+            return;
+        }
+        int key = key(mobile.getLocation());
+        mobile.chunkKey(key);
+        chunk(key).add(mobile);
+    }
+
+    /**
+     * Removes a mobile from the chunk it was last indexed under
+     *
+     * @param mobile
+     */
+    public synchronized void remove(E mobile) {
+        int key = mobile.chunkKey();
+        if (key != NOT_INDEXED) {
+            chunk(key).remove(mobile);
+        }
+        mobile.chunkKey(NOT_INDEXED);
+    }
+
+    /**
+     * Moves an indexed mobile to the chunk matching its current location.
+     * Mobiles which were never added are ignored.
+     *
+     * @param mobile
+     */
+    public void move(E mobile) {
+        int key = key(mobile.getLocation());
+        if (key == mobile.chunkKey()) {
+            return;
+        }
+        synchronized (this) {
+            int previous = mobile.chunkKey();
+            if (previous == NOT_INDEXED || previous == key) {
+                return;
+            }
+            chunk(previous).remove(mobile);
+            mobile.chunkKey(key);
+            chunk(key).add(mobile);
+        }
+    }
+
+    /**
+     * Collects every mobile on the same height whose coordinates are no more
+     * than the given distance away on either axis. Callers apply their own
+     * exact view checks on the result.
+     *
+     * @param centre the location to search around
+     * @param distance the distance in tiles
+     * @param out the list to fill, cleared first
+     * @return the filled list
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> collect(Location centre, int distance, List<E> out) {
+        out.clear();
+        int x = centre.getX(), y = centre.getY(), height = centre.getH() & 3;
+        int minX = Math.max(x - distance, 0) >> 3;
+        int maxX = Math.min(x + distance, REGIONS_X * 64 - 1) >> 3;
+        int minY = Math.max(y - distance, 0) >> 3;
+        int maxY = Math.min(y + distance, REGIONS_Y * 64 - 1) >> 3;
+        for (int chunkY = minY; chunkY <= maxY; chunkY++) {
+            for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+                Chunk[] chunks = regions.get(regionIndex(chunkX, chunkY, height));
+                if (chunks == null) {
+                    continue;
+                }
+                Object[] mobiles = chunks[((chunkY & 7) << 3) | (chunkX & 7)].mobiles;
+                for (Object element : mobiles) {
+                    Location other = ((E) element).getLocation();
+                    if (Math.abs(other.getX() - x) <= distance
+                            && Math.abs(other.getY() - y) <= distance
+                            && other.getH() == centre.getH()) {
+                        out.add((E) element);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Collects every mobile on the same height within the given distance into
+     * a new list.
+     *
+     * @param centre the location to search around
+     * @param distance the distance in tiles
+     * @return the mobiles found
+     */
+    public List<E> collect(Location centre, int distance) {
+        return collect(centre, distance, new ArrayList<E>());
+    }
+
+    /**
+     * Gets the chunk for a key, creating its region if required
+     *
+     * @param key
+     * @return the chunk
+     */
+    private Chunk chunk(int key) {
+        int region = key >>> 6;
+        Chunk[] chunks = regions.get(region);
+        if (chunks == null) {
+            chunks = new Chunk[64];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new Chunk();
+            }
+            regions.set(region, chunks);
+        }
+        return chunks[key & 63];
+    }
+
+    /**
+     * Computes the chunk key of a location, coordinates beyond the grid are
+     * clamped onto its edge
+     *
+     * @param location
+     * @return the key
+     */
+    private static int key(Location location) {
+        int x = Math.min(Math.max(location.getX(), 0), REGIONS_X * 64 - 1);
+        int y = Math.min(Math.max(location.getY(), 0), REGIONS_Y * 64 - 1);
+        int chunkX = x >> 3, chunkY = y >> 3;
+        return regionIndex(chunkX, chunkY, location.getH() & 3) << 6
+                | ((chunkY & 7) << 3) | (chunkX & 7);
+    }
+
+    /**
+     * Computes the index of the region holding a chunk
+     */
+    private static int regionIndex(int chunkX, int chunkY, int height) {
+        return (height * REGIONS_Y + (chunkY >> 3)) * REGIONS_X + (chunkX >> 3);
+    }
+
+    /**
+     * A single 8x8 bucket. The contents are replaced on every change so that
+     * readers can iterate a snapshot without locking.
+     */
+    private static final class Chunk {
+
+        private static final Object[] EMPTY = new Object[0];
+
+        private volatile Object[] mobiles = EMPTY;
+
+        void add(Object mobile) {
+            Object[] current = mobiles;
+            Object[] updated = new Object[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = mobile;
+            mobiles = updated;
+        }
+
+        void remove(Object mobile) {
+            Object[] current = mobiles;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == mobile) {
+                    Object[] updated = new Object[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i,
+                            current.length - i - 1);
+                    mobiles = current.length == 1 ? EMPTY : updated;
+                    return;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.game.map;
+
+/**
+ * Static helpers for coordinates packed into a single int, and for the region
+ * arithmetic shared by {@link Location} and {@link Region}. The x and y
+ * coordinates take 15 bits each and the height the top two bits, so a packed
+ * value can be stored or compared without allocating a {@link Location}.
+ *
+ * @author Faris
+ */
+public final class Coordinates {
+
+	/**
+	 * Mask of a single packed x or y coordinate.
+	 */
+	private static final int COORDINATE_MASK = 0x7FFF;
+
+	/**
+	 * Packs the given coordinates.
+	 *
+	 * @param x
+	 *            the x coordinate
+	 * @param y
+	 *            the y coordinate
+	 * @param height
+	 *            the height level
+	 *
+	 * @return the packed coordinates
+	 */
+	public static int pack(int x, int y, int height) {
+		return (height & 3) << 30 | (y & COORDINATE_MASK) << 15
+				| (x & COORDINATE_MASK);
+	}
+
+	/**
+	 * @return the x coordinate of packed coordinates
+	 */
+	public static int x(int packed) {
+		return packed & COORDINATE_MASK;
+	}
+
+	/**
+	 * @return the y coordinate of packed coordinates
+	 */
+	public static int y(int packed) {
+		return (packed >>> 15) & COORDINATE_MASK;
+	}
+
+	/**
+	 * @return the height level of packed coordinates
+	 */
+	public static int height(int packed) {
+		return packed >>> 30;
+	}
+
+	/**
+	 * Gets the region coordinate of an absolute coordinate.
+	 *
+	 * @param coordinate
+	 *            the absolute x or y coordinate
+	 *
+	 * @return the region coordinate
+	 */
+	public static int region(int coordinate) {
+		return (coordinate >> 3) - 6;
+	}
+
+	/**
+	 * Gets an absolute coordinate relative to the region of another.
+	 *
+	 * @param coordinate
+	 *            the absolute x or y coordinate
+	 * @param base
+	 *            the absolute coordinate whose region is used
+	 *
+	 * @return the local coordinate
+	 */
+	public static int local(int coordinate, int base) {
+		return coordinate - 8 * region(base);
+	}
+
+	/**
+	 * Checks if the second point lies within the client view of the first,
+	 * which extends 15 tiles behind and 14 tiles ahead on each axis.
+	 *
+	 * @return true if it is viewable, false otherwise
+	 */
+	public static boolean viewable(int x, int y, int otherX, int otherY) {
+		int deltaX = otherX - x;
+		int deltaY = otherY - y;
+		return deltaX <= 14 && deltaX >= -15 && deltaY <= 14 && deltaY >= -15;
+	}
+
+	/**
+	 * Checks if two packed coordinates share a height and are closer than
+	 * the given distance on both axes.
+	 *
+	 * @param packed
+	 *            the first coordinates
+	 * @param other
+	 *            the second coordinates
+	 * @param distance
+	 *            the distance
+	 *
+	 * @return true if within distance, false otherwise
+	 */
+	public static boolean withinDistance(int packed, int other, int distance) {
+		return height(packed) == height(other)
+				&& Math.abs(x(other) - x(packed)) < distance
+				&& Math.abs(y(other) - y(packed)) < distance;
+	}
+
+	private Coordinates() {
+	}
+
+}
@@ -23,16 +23,32 @@ package org.solace.game.map;
 public class Location {
 
 	protected int x, y, z;
-	private Region region;
+
+	/**
+	 * View of the region data of this location, created on first use. It
+	 * reads the live coordinates so it never has to be replaced.
+	 */
+	private transient Region region;
 
 	public Location(int x, int y) {
 		setX(x).setY(y).setH(0);
-		this.region = new Region(this);
 	}
 
 	public Location(int x, int y, int h) {
-		setX(x).setY(y).setH(z);
-		this.region = new Region(this);
+		setX(x).setY(y).setH(h);
+	}
+
+	/**
+	 * Creates a location from packed coordinates.
+	 *
+	 * @param packed
+	 *            the coordinates packed by {@link Coordinates#pack}
+	 *
+	 * @return the location
+	 */
+	public static Location unpack(int packed) {
+		return new Location(Coordinates.x(packed), Coordinates.y(packed),
+				Coordinates.height(packed));
 	}
 
 	public Location setX(int x) {
@@ -47,7 +63,6 @@ public class Location {
 		this.x = x;
 		this.y = y;
 		this.z = 0;
-		this.region = new Region(this);
 		return this;
 	}
 
@@ -55,7 +70,6 @@ public class Location {
 		this.x = x;
 		this.y = y;
 		this.z = z;
-		this.region = new Region(this);
 		return this;
 	}
 
@@ -83,9 +97,21 @@ public class Location {
 	}
 
 	public Region getRegion() {
+		if (region == null) {
+			region = new Region(this);
+		}
 		return region;
 	}
 
+	/**
+	 * Packs the coordinates of this location into a single int.
+	 *
+	 * @return the packed coordinates
+	 */
+	public int packed() {
+		return Coordinates.pack(x, y, z);
+	}
+
 	/**
 	 * Transforms this location.
 	 * 
@@ -136,9 +162,7 @@ public class Location {
 		if (this.getH() != other.getH()) {
 			return false;
 		}
-		Location p = delta(this, other);
-		return p.getX() <= 14 && p.getX() >= -15 && p.getY() <= 14
-				&& p.getY() >= -15;
+		return Coordinates.viewable(x, y, other.getX(), other.getY());
 	}
 
 	/**
@@ -215,7 +239,7 @@ public class Location {
 	 * @return the region x coordinate
 	 */
 	public int regionX() {
-		return (x >> 3) - 6;
+		return Coordinates.region(x);
 	}
 
 	/**
@@ -224,7 +248,7 @@ public class Location {
 	 * @return the region y coordinate
 	 */
 	public int regionY() {
-		return (y >> 3) - 6;
+		return Coordinates.region(y);
 	}
 
 	/**
@@ -251,7 +275,7 @@ public class Location {
 	 * @return the local x coordinate
 	 */
 	public int localX(Location location) {
-		return location.x - 8 * location.regionX();
+		return Coordinates.local(location.x, location.x);
 	}
 
 	/**
@@ -260,7 +284,7 @@ public class Location {
 	 * @return the local y coordinate
 	 */
 	public int localY(Location location) {
-		return location.y - 8 * location.regionY();
+		return Coordinates.local(location.y, location.y);
 	}
         
         /**
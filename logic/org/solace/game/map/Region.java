@@ -38,7 +38,7 @@ public class Region {
      * @return the region x coordinate
      */
     public int regionX() {
-        return (getLocation().x >> 3) - 6;
+        return Coordinates.region(getLocation().x);
     }
 
     /**
@@ -46,7 +46,7 @@ public class Region {
      * @return the region y coordinate
      */
     public int regionY() {
-        return (getLocation().y >> 3) - 6;
+        return Coordinates.region(getLocation().y);
     }
 
     /**
@@ -70,7 +70,7 @@ public class Region {
      * @return the local x coordinate
      */
     public int localX(Location location) {
-        return location.x - 8 * location.getRegion().regionX();
+        return Coordinates.local(location.x, location.x);
     }
 
     /**
@@ -78,7 +78,7 @@ public class Region {
      * @return the local y coordinate
      */
     public int localY(Location location) {
-        return location.y - 8 * location.getRegion().regionY();
+        return Coordinates.local(location.y, location.y);
     }
 
 }
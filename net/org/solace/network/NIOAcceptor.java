@@ -17,11 +17,13 @@ package org.solace.network;
 
 import java.io.IOException;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
-import org.solace.game.Game;
 import org.solace.game.entity.mobile.player.PlayerLoginDecipher;
 
 /**
+ * Accepts new connections and hands them straight to the reactors, which
+ * drive the login procedure as its data arrives.
  *
  * @author KleptO
  */
@@ -29,29 +31,24 @@ public class NIOAcceptor extends Thread {
 
     @Override
     public void run() {
+        Selector selector;
+        try {
+            selector = Selector.open();
+            NIOServer.channel().register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
         while (NIOServer.channel().isOpen()) {
             try {
-                SocketChannel channel = NIOServer.channel().accept();
-                channel.configureBlocking(false);
-                RSChannelContext channelContext = new RSChannelContext(channel,
-                        new PlayerLoginDecipher());
-                for (int i = 0; i < 3; i++) {
-                    try {
-                        channelContext.decoder().decode(channelContext);
-                        Thread.sleep(50);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        channel.close();
-                    }
-                }
-                if (!channel.isOpen()) {
-                    if (channelContext.player() != null) {
-                        Game.getSingleton().deregister(channelContext.player());
-                    }
-                    continue;
+                selector.select();
+                selector.selectedKeys().clear();
+                SocketChannel channel;
+                while ((channel = NIOServer.channel().accept()) != null) {
+                    channel.configureBlocking(false);
+                    NIOSelector.register(new RSChannelContext(channel,
+                            new PlayerLoginDecipher()));
                 }
-                channel.register(NIOSelector.selector(), SelectionKey.OP_READ,
-                        channelContext);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.network;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selector thread which continuously reads and decodes the channels
+ * registered with it, queueing decoded packets on each channel context for
+ * the game cycle to handle, and finishes flushes the game cycle could not
+ * complete.
+ *
+ * @author Faris
+ */
+public class NIOReactor extends Thread {
+
+    private static final Logger logger = Logger.getLogger(NIOReactor.class.getName());
+
+    /**
+     * The selector owned by this thread
+     */
+    private final Selector selector;
+
+    /**
+     * Channels handed over by the acceptor, registered on the next wake up
+     */
+    private final Queue<RSChannelContext> registrations = new ConcurrentLinkedQueue<RSChannelContext>();
+
+    /**
+     * Milliseconds between two decodes of a channel waiting for a rate
+     * limited packet to be allowed
+     */
+    private static final long DEFER_RETRY = 10;
+
+    /**
+     * Channels whose reading is stopped until a rate limited packet is allowed
+     */
+    private final List<RSChannelContext> deferred = new ArrayList<RSChannelContext>();
+
+    /**
+     * Creates a new reactor with its own selector.
+     *
+     * @param name
+     *            the thread name
+     */
+    public NIOReactor(String name) throws IOException {
+        super(name);
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Hands a channel to this reactor, safe to call from any thread.
+     *
+     * @param channelContext
+     *            the channel context
+     */
+    public void register(RSChannelContext channelContext) {
+        registrations.add(channelContext);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (selector.isOpen()) {
+            try {
+                if (deferred.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.select(DEFER_RETRY);
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Selector failure", e);
+                continue;
+            }
+            registerPending();
+            for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+                SelectionKey key = it.next();
+                it.remove();
+                if (key.attachment() == null || !key.isValid()) {
+                    continue;
+                }
+                RSChannelContext channelContext = (RSChannelContext) key.attachment();
+                try {
+                    if (key.isWritable()) {
+                        channelContext.flush();
+                    }
+                    if (key.isReadable()) {
+                        channelContext.decoder().decode(channelContext);
+                        if (channelContext.isReadPaused()) {
+                            deferred.add(channelContext);
+                        }
+                    }
+                } catch (Exception e) {
+                    channelContext.disconnect();
+                }
+            }
+            retryDeferred();
+        }
+    }
+
+    /**
+     * Decodes again the channels whose reading is stopped by a rate limited
+     * packet, dropping those which may read again.
+     */
+    private void retryDeferred() {
+        for (Iterator<RSChannelContext> it = deferred.iterator(); it.hasNext();) {
+            RSChannelContext channelContext = it.next();
+            try {
+                if (!channelContext.isDisconnected()) {
+                    channelContext.decoder().decode(channelContext);
+                }
+            } catch (Exception e) {
+                channelContext.disconnect();
+            }
+            if (channelContext.isDisconnected() || !channelContext.isReadPaused()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Registers the channels handed over since the last wake up and writes
+     * anything queued for them during login.
+     */
+    private void registerPending() {
+        RSChannelContext channelContext;
+        while ((channelContext = registrations.poll()) != null) {
+            try {
+                channelContext.key(channelContext.channel().register(selector,
+                        SelectionKey.OP_READ, channelContext));
+                channelContext.flush();
+            } catch (IOException e) {
+                channelContext.disconnect();
+            }
+        }
+    }
+
+}
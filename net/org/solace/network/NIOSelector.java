@@ -16,52 +16,43 @@
 package org.solace.network;
 
 import java.io.IOException;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
-import org.solace.game.Game;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * The group of {@link NIOReactor} threads which own every connected channel.
+ * Channels are spread over the reactors round robin.
  *
  * @author KleptO
  */
 public class NIOSelector {
-    
-    private static Selector selector;
 
-    public void select() {
-        try {
-            selector().selectNow();
-            for (SelectionKey key : selector().selectedKeys()) {
-                if (key.attachment() == null) {
-                    continue;
-                }
-                RSChannelContext channelContext = (RSChannelContext) key.attachment();
-                try {
-                    channelContext.decoder().decode(channelContext);
-                } catch (Exception e) {
-                    Game.getSingleton().deregister(channelContext.player());
-                    key.channel().close();
-                    key.cancel();
-                }
-            }
-        } catch (IOException e) {
-        }
-    }
+    private static NIOReactor[] reactors;
+
+    /**
+     * The number of channels handed out so far
+     */
+    private static final AtomicInteger registrations = new AtomicInteger();
 
     /**
-     * Sets the associated selector.
-     * @param selector the selector
+     * Starts the given number of reactor threads.
+     * @param count the number of reactors
      */
-    public static void selector(Selector selector) {
-        NIOSelector.selector = selector;
+    public static void start(int count) throws IOException {
+        NIOReactor[] group = new NIOReactor[Math.max(count, 1)];
+        for (int i = 0; i < group.length; i++) {
+            group[i] = new NIOReactor("NIOReactor-" + i);
+            group[i].start();
+        }
+        reactors = group;
     }
 
     /**
-     * Gets the associated selector.
-     * @return the selector
+     * Hands a logged in channel to the next reactor.
+     * @param channelContext the channel context
      */
-    public static Selector selector() {
-        return selector;
+    public static void register(RSChannelContext channelContext) {
+        int next = registrations.getAndIncrement() & Integer.MAX_VALUE;
+        reactors[next % reactors.length].register(channelContext);
     }
 
 }
@@ -17,8 +17,8 @@ package org.solace.network;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
+import org.solace.util.Constants;
 
 /**
  *
@@ -33,9 +33,9 @@ public class NIOServer {
      * @param port the server port
      */
     public static void bind(int port) throws IOException {
-        NIOSelector.selector(Selector.open());
+        NIOSelector.start(Constants.NETWORK_SELECTOR_THREADS);
         channel(ServerSocketChannel.open());
-        channel().configureBlocking(true);
+        channel().configureBlocking(false);
         channel().socket().bind(new InetSocketAddress(port));
         new NIOAcceptor().start();
     }
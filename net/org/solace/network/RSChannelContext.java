@@ -15,8 +15,25 @@
  */
 package org.solace.network;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import net.burtlebutle.bob.rand.isaac.ISAAC;
+import org.solace.metrics.Metrics;
+import org.solace.metrics.Metrics.Counter;
+import org.solace.util.Constants;
+import org.solace.network.packet.BufferPool;
+import org.solace.network.packet.Packet;
+import org.solace.network.packet.PacketRing;
+import org.solace.network.packet.PacketType;
 import org.solace.game.entity.mobile.player.Player;
 
 /**
@@ -26,9 +43,62 @@ import org.solace.game.entity.mobile.player.Player;
 public class RSChannelContext {
 
     private SocketChannel channel;
-    private NIODecoder decoder;
+    private volatile NIODecoder decoder;
     private Player player;
     private ISAAC encryption, decryption;
+    private SelectionKey key;
+
+    /**
+     * Outgoing buffers queued by any thread, awaiting the next flush
+     */
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    /**
+     * Buffers taken from the outbound queue which were not yet fully written
+     */
+    private final Deque<ByteBuffer> pending = new ArrayDeque<ByteBuffer>();
+
+    /**
+     * Reusable array handed to the gathering write
+     */
+    private ByteBuffer[] gather = new ByteBuffer[32];
+
+    /**
+     * Incoming data read by the reactor, framed packets await the next game
+     * cycle
+     */
+    private final PacketRing inbound = new PacketRing();
+
+    /**
+     * Set while the decoder waits for a rate limited packet to be allowed
+     */
+    private boolean readPaused;
+
+    /**
+     * Bytes queued but not yet written to the socket
+     */
+    private final AtomicLong backlog = new AtomicLong();
+
+    /**
+     * Consecutive cycles the backlog has stayed congested
+     */
+    private int congestedCycles;
+
+    /**
+     * When the client last sent anything
+     */
+    private volatile long lastReceived = System.nanoTime();
+
+    /**
+     * How long a client may send nothing before it is disconnected
+     */
+    private static final long IDLE_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(
+            (long) Constants.SESSION_IDLE_CYCLES * Constants.SERVER_CYCLE_RATE);
+
+    /**
+     * Set once the reactor has dropped this channel
+     */
+    private volatile boolean disconnected;
 
     /**
      * Creates a new channel context.
@@ -143,4 +213,231 @@ public class RSChannelContext {
     public ISAAC decryption() {
             return decryption;
     }
+
+    /**
+     * Sets the selection key this channel is registered with.
+     * 
+     * @param key
+     *            the selection key
+     */
+    public RSChannelContext key(SelectionKey key) {
+            this.key = key;
+            return this;
+    }
+
+    /**
+     * Gets the selection key this channel is registered with.
+     * 
+     * @return the selection key
+     */
+    public SelectionKey key() {
+            return key;
+    }
+
+    /**
+     * Gets the ring the reactor decodes incoming packets into.
+     * 
+     * @return the incoming packet ring
+     */
+    public PacketRing inbound() {
+            return inbound;
+    }
+
+    /**
+     * Handles the packets decoded since the last call, at most
+     * {@link Constants#INBOUND_PACKETS_PER_CYCLE} of them, the rest wait for
+     * the next cycle. Must only be called from the game cycle, and handlers
+     * must not keep the packets they are given since the ring reuses them.
+     */
+    public void handleInbound() {
+            Packet packet;
+            for (int handled = 0; handled < Constants.INBOUND_PACKETS_PER_CYCLE
+                    && (packet = inbound.poll()) != null; handled++) {
+                    PacketType.handlePacket(this, packet);
+            }
+    }
+
+    /**
+     * Stops or resumes reading the channel. Stopped while the decoder waits
+     * for a rate limited packet, leaving the rest of the data in the socket.
+     * 
+     * @param paused
+     *            true to stop reading
+     */
+    public synchronized void pauseReading(boolean paused) {
+            if (paused == readPaused) {
+                    return;
+            }
+            readPaused = paused;
+            if (key != null && key.isValid()) {
+                    key.interestOps(paused ? key.interestOps() & ~SelectionKey.OP_READ
+                            : key.interestOps() | SelectionKey.OP_READ);
+            }
+    }
+
+    /**
+     * @return true if reading is stopped until a rate limited packet is
+     *         allowed
+     */
+    public synchronized boolean isReadPaused() {
+            return readPaused;
+    }
+
+    /**
+     * Closes the channel after a read or write failure, giving the buffers
+     * still queued back to the pool. The player is logged out by the next
+     * game cycle.
+     */
+    public void disconnect() {
+            disconnected = true;
+            if (key != null) {
+                    key.cancel();
+            }
+            try {
+                    channel.close();
+            } catch (IOException e) {
+            }
+            releaseQueued();
+    }
+
+    /**
+     * Gives every buffer waiting to be written back to the pool.
+     */
+    private synchronized void releaseQueued() {
+            ByteBuffer buffer;
+            while ((buffer = outbound.poll()) != null) {
+                    BufferPool.release(buffer);
+            }
+            while ((buffer = pending.poll()) != null) {
+                    BufferPool.release(buffer);
+            }
+    }
+
+    /**
+     * @return true if the reactor has dropped this channel
+     */
+    public boolean isDisconnected() {
+            return disconnected;
+    }
+
+    /**
+     * Queues an outgoing buffer, safe to call from any thread. The buffer must
+     * already be flipped for reading.
+     * 
+     * @param buffer
+     *            the outgoing data
+     */
+    public RSChannelContext write(ByteBuffer buffer) {
+            if (disconnected) {
+                    BufferPool.release(buffer);
+                    return this;
+            }
+            Metrics.increment(Counter.PACKETS_OUT);
+            outbound.add(buffer);
+            if (backlog.addAndGet(buffer.remaining()) > Constants.OUTBOUND_LIMIT) {
+                    Metrics.increment(Counter.BACKLOG_EVICTIONS);
+                    disconnect();
+            } else if (disconnected) {
+                    /*
+                     * Disconnected since the check above, the buffer may have
+                     * been queued after the others were released
+                     */
+                    releaseQueued();
+            }
+            return this;
+    }
+
+    /**
+     * Records that the client sent something.
+     * 
+     * @param now
+     *            the current {@link System#nanoTime()}
+     */
+    public void received(long now) {
+            lastReceived = now;
+    }
+
+    /**
+     * Checks once a cycle that the client is still sending and reading,
+     * disconnecting it if it has been idle for
+     * {@link Constants#SESSION_IDLE_CYCLES} or has left more than
+     * {@link Constants#OUTBOUND_HIGH_WATERMARK} unread for
+     * {@link Constants#OUTBOUND_CONGESTED_CYCLES}. A congested session only
+     * recovers once its backlog is under the low watermark. Must only be
+     * called from the game cycle.
+     * 
+     * @param now
+     *            the current {@link System#nanoTime()}
+     * 
+     * @return true if the session was disconnected
+     */
+    public boolean evictIfStale(long now) {
+            if (now - lastReceived > IDLE_TIMEOUT) {
+                    Metrics.increment(Counter.IDLE_EVICTIONS);
+                    disconnect();
+                    return true;
+            }
+            long unsent = backlog.get();
+            if (unsent > Constants.OUTBOUND_HIGH_WATERMARK) {
+                    congestedCycles++;
+            } else if (unsent < Constants.OUTBOUND_LOW_WATERMARK) {
+                    congestedCycles = 0;
+            }
+            if (congestedCycles > Constants.OUTBOUND_CONGESTED_CYCLES) {
+                    Metrics.increment(Counter.BACKLOG_EVICTIONS);
+                    disconnect();
+                    return true;
+            }
+            return false;
+    }
+
+    /**
+     * @return the number of bytes queued but not yet written to the socket
+     */
+    public long backlog() {
+            return backlog.get();
+    }
+
+    /**
+     * Writes all queued buffers to the channel with a single gathering write.
+     * Anything the socket could not accept stays pending and {@code OP_WRITE}
+     * is registered so the selector finishes the flush once there is room.
+     * 
+     * @throws IOException
+     *             if the channel could not be written to
+     */
+    public synchronized void flush() throws IOException {
+            ByteBuffer buffer;
+            while ((buffer = outbound.poll()) != null) {
+                    pending.add(buffer);
+            }
+            int count = pending.size();
+            if (count > 0) {
+                    if (gather.length < count) {
+                            gather = new ByteBuffer[count * 2];
+                    }
+                    pending.toArray(gather);
+                    try {
+                            long written = channel.write(gather, 0, count);
+                            backlog.addAndGet(-written);
+                            Metrics.add(Counter.BYTES_OUT, written);
+                    } finally {
+                            Arrays.fill(gather, 0, count, null);
+                    }
+                    while (!pending.isEmpty() && !pending.peek().hasRemaining()) {
+                            BufferPool.release(pending.poll());
+                    }
+            }
+            if (key != null && key.isValid()) {
+                    int ops = key.interestOps();
+                    int interest = pending.isEmpty() ? ops & ~SelectionKey.OP_WRITE
+                            : ops | SelectionKey.OP_WRITE;
+                    if (interest != ops) {
+                            key.interestOps(interest);
+                            if ((interest & SelectionKey.OP_WRITE) != 0) {
+                                    key.selector().wakeup();
+                            }
+                    }
+            }
+    }
 }
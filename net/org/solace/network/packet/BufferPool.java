@@ -0,0 +1,214 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.network.packet;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.solace.util.Constants;
+
+/**
+ * Size classed pool of direct buffers used by outgoing {@link PacketBuilder}s.
+ * Buffers are borrowed on whichever thread builds a packet and handed back
+ * once the channel context has written them, so each class is a lock free
+ * queue shared between threads.
+ *
+ * @author Faris
+ */
+public final class BufferPool {
+
+	/**
+	 * The smallest size class, as a power of two.
+	 */
+	private static final int MINIMUM_SHIFT = 6;
+
+	/**
+	 * The largest size class, as a power of two.
+	 */
+	private static final int MAXIMUM_SHIFT = 14;
+
+	/**
+	 * The amount of direct memory a single size class may keep hold of when it
+	 * would otherwise retain fewer than two buffers per player.
+	 */
+	private static final int RETAINED_BYTES = 1 << 22;
+
+	/**
+	 * The pooled buffers, one queue per size class.
+	 */
+	private static final Queue<ByteBuffer>[] pools;
+
+	/**
+	 * The number of buffers currently held by each size class.
+	 */
+	private static final AtomicInteger[] sizes;
+
+	/**
+	 * The maximum number of buffers each size class holds.
+	 */
+	private static final int[] limits;
+
+	/**
+	 * Usage counters.
+	 */
+	private static final AtomicLong hits = new AtomicLong(),
+			misses = new AtomicLong(), releases = new AtomicLong(),
+			discards = new AtomicLong();
+
+	/**
+	 * Initializes the size classes.
+	 */
+	static {
+		int classes = MAXIMUM_SHIFT - MINIMUM_SHIFT + 1;
+		pools = createPools(classes);
+		sizes = new AtomicInteger[classes];
+		limits = new int[classes];
+		for (int i = 0; i < classes; i++) {
+			sizes[i] = new AtomicInteger();
+			limits[i] = Math.max(Constants.SERVER_MAX_PLAYERS * 2,
+					RETAINED_BYTES >> (MINIMUM_SHIFT + i));
+		}
+	}
+
+	private static Queue<ByteBuffer>[] createPools(int classes) {
+		// generic arrays cannot be created, every slot is filled below
+		@SuppressWarnings("unchecked")
+		Queue<ByteBuffer>[] queues = (Queue<ByteBuffer>[]) new Queue<?>[classes];
+		for (int i = 0; i < classes; i++) {
+			queues[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+		}
+		return queues;
+	}
+
+	/**
+	 * Borrows a cleared buffer with at least the given capacity. Requests
+	 * larger than the biggest size class are allocated without pooling.
+	 *
+	 * @param capacity
+	 *            the minimum capacity
+	 *
+	 * @return the buffer
+	 */
+	public static ByteBuffer acquire(int capacity) {
+		int index = sizeClass(capacity);
+		if (index < 0) {
+			misses.incrementAndGet();
+			return ByteBuffer.allocateDirect(capacity);
+		}
+		ByteBuffer buffer = pools[index].poll();
+		if (buffer == null) {
+			misses.incrementAndGet();
+			return ByteBuffer.allocateDirect(1 << (MINIMUM_SHIFT + index));
+		}
+		sizes[index].decrementAndGet();
+		hits.incrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Hands a buffer back to the pool. Buffers which don't belong to a size
+	 * class, or whose class is already full, are left to the garbage
+	 * collector. The buffer must not be used by the caller afterwards.
+	 *
+	 * @param buffer
+	 *            the buffer
+	 */
+	public static void release(ByteBuffer buffer) {
+		if (buffer == null) {
+			return;
+		}
+		int capacity = buffer.capacity();
+		int index = sizeClass(capacity);
+		if (!buffer.isDirect() || index < 0
+				|| capacity != 1 << (MINIMUM_SHIFT + index)) {
+			discards.incrementAndGet();
+			return;
+		}
+		if (sizes[index].incrementAndGet() > limits[index]) {
+			sizes[index].decrementAndGet();
+			discards.incrementAndGet();
+			return;
+		}
+		pools[index].add(buffer);
+		releases.incrementAndGet();
+	}
+
+	/**
+	 * Gets the size class able to hold the given capacity.
+	 *
+	 * @param capacity
+	 *            the capacity
+	 *
+	 * @return the size class index, or -1 if no class is large enough
+	 */
+	private static int sizeClass(int capacity) {
+		if (capacity > 1 << MAXIMUM_SHIFT) {
+			return -1;
+		}
+		int shift = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, 1) - 1);
+		return Math.max(shift, MINIMUM_SHIFT) - MINIMUM_SHIFT;
+	}
+
+	/**
+	 * @return the number of requests served from the pool
+	 */
+	public static long hits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of requests which had to allocate
+	 */
+	public static long misses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of buffers handed back into the pool
+	 */
+	public static long releases() {
+		return releases.get();
+	}
+
+	/**
+	 * @return the number of buffers the pool refused to keep
+	 */
+	public static long discards() {
+		return discards.get();
+	}
+
+	/**
+	 * Gets a printable summary of the pool usage.
+	 *
+	 * @return the summary
+	 */
+	public static String statistics() {
+		int pooled = 0;
+		for (AtomicInteger size : sizes) {
+			pooled += size.get();
+		}
+		return "Packet buffers: hits=" + hits() + ", misses=" + misses()
+				+ ", releases=" + releases() + ", discards=" + discards()
+				+ ", pooled=" + pooled;
+	}
+
+	private BufferPool() {
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.network.packet;
+
+import org.solace.util.Constants;
+
+/**
+ * What the decoder does with a packet sent faster than its opcode allows.
+ *
+ * @author Faris
+ */
+public enum FloodPolicy {
+
+	/**
+	 * Discards the packet, the session carries on.
+	 */
+	DROP,
+
+	/**
+	 * Stops reading the session until the packet is allowed, leaving the
+	 * client to back off.
+	 */
+	DEFER,
+
+	/**
+	 * Disconnects the session.
+	 */
+	DISCONNECT;
+
+	/**
+	 * The policy set in {@link Constants#INBOUND_FLOOD_POLICY}.
+	 */
+	public static final FloodPolicy CONFIGURED = valueOf(Constants.INBOUND_FLOOD_POLICY
+			.toUpperCase());
+
+}
@@ -16,12 +16,7 @@
 package org.solace.network.packet;
 
 import java.nio.ByteBuffer;
-import java.nio.channels.SocketChannel;
 
-import org.solace.Server;
-import org.solace.event.events.PlayerSaveEvent;
-import org.solace.game.Game;
-import org.solace.network.NIOSelector;
 import org.solace.network.RSChannelContext;
 
 /**
@@ -32,7 +27,7 @@ import org.solace.network.RSChannelContext;
  */
 public class Packet {
 
-	private ByteBuffer buffer = ByteBuffer.allocate(5096);
+	private ByteBuffer buffer;
 	private int opcode, length;
 
 	/**
@@ -275,51 +270,18 @@ public class Packet {
 	}
 
 	/**
-	 * Sends the packet data to the socket channel.
+	 * Queues the packet data on the channel context's outbound queue. The data
+	 * is written to the socket when the context is next flushed.
 	 * 
-	 * @param channel
-	 *            the socket channel
+	 * @param channelContext
+	 *            the channel context
 	 * 
-	 * @see SocketChannel #write(ByteBuffer)
+	 * @see RSChannelContext#flush()
 	 */
-	public Packet sendTo(SocketChannel channel) {
-		try {
-			buffer.flip();
-			channel.write(buffer);
-		} catch (Exception e) {
-			Server.getEventManager().dispatchEvent(new PlayerSaveEvent(((RSChannelContext) channel.keyFor(
-					NIOSelector.selector()).attachment()).player()));
-			Game.getSingleton().deregister(
-					((RSChannelContext) channel.keyFor(NIOSelector.selector())
-							.attachment()).player());
-		}
+	public Packet sendTo(RSChannelContext channelContext) {
+		buffer.flip();
+		channelContext.write(buffer);
 		return this;
 	}
 
-	/**
-	 * Builds the incoming packet for packet processing.
-	 * 
-	 * @param source
-	 *            the data source
-	 * 
-	 * @param opcode
-	 *            the packet opcode
-	 * 
-	 * @param length
-	 *            the payload length
-	 * 
-	 * @return new packet ready to be processed
-	 */
-	public static Packet buildPacket(ByteBuffer source, int opcode, int length) {
-		Packet packet = new Packet().buffer(ByteBuffer.allocateDirect(length))
-				.opcode(opcode).length(length);
-		for (; length > 0; length--) {
-			packet.buffer().put(source.get());
-		}
-		packet.buffer().flip();
-		return packet;
-	}
-
-	NIOSelector selector = new NIOSelector();
-
 }
\ No newline at end of file
@@ -32,7 +32,12 @@ public class PacketBuilder extends Packet {
 	private int[] frameSizes = new int[10];
 	private int frameSizePointer = 0;
 
-	private int bitPosition;
+	/**
+	 * Bits written under bit access which are not yet in the buffer, the
+	 * oldest in the highest places, and how many of them there are.
+	 */
+	private long bitRegister;
+	private int bitCount;
 	private boolean bitAccess = false;
 
 	/**
@@ -64,9 +69,7 @@ public class PacketBuilder extends Packet {
 	 *            the bytes array
 	 */
 	public PacketBuilder put(byte[] buffer) {
-		for (int i = 0; i < buffer.length; i++) {
-			buffer().put(buffer[i]);
-		}
+		buffer().put(buffer);
 		return this;
 	}
 
@@ -332,7 +335,8 @@ public class PacketBuilder extends Packet {
 	 */
 	public PacketBuilder bitAccess() {
 		if (!bitAccess) {
-			bitPosition = buffer().position() * 8;
+			bitRegister = 0;
+			bitCount = 0;
 			bitAccess = true;
 		}
 		return this;
@@ -340,11 +344,18 @@ public class PacketBuilder extends Packet {
 
 	/**
 	 * Initializes byte access to the buffer only if bit access is currently
-	 * active.
+	 * active. Spills the bits still held and pads the last byte with zeros.
 	 */
 	public PacketBuilder byteAccess() {
 		if (bitAccess) {
-			buffer().position((bitPosition + 7) / 8);
+			for (; bitCount >= 8; bitCount -= 8) {
+				buffer().put((byte) (bitRegister >>> (bitCount - 8)));
+			}
+			if (bitCount > 0) {
+				buffer().put((byte) (bitRegister << (8 - bitCount)));
+			}
+			bitRegister = 0;
+			bitCount = 0;
 			bitAccess = false;
 		}
 		return this;
@@ -365,44 +376,28 @@ public class PacketBuilder extends Packet {
 	}
 
 	/**
-	 * Puts bits into byte buffer.
+	 * Puts bits into byte buffer. The bits are gathered in a register and
+	 * written four bytes at a time, so most calls never touch the buffer.
 	 * 
 	 * @param amount
-	 *            the number of bits
+	 *            the number of bits, at most 32
 	 * 
 	 * @param value
 	 *            the bits value
 	 */
 	public PacketBuilder putBits(int amount, int value) {
-		int i = 0, bytePos = bitPosition >> 3;
-		int bitOffset = 8 - (bitPosition & 7);
-		bitPosition += amount;
-		for (; amount > bitOffset; bitOffset = 8) {
-			i = buffer().get(bytePos) & ~BIT_MASK[bitOffset];
-			buffer().put(bytePos, (byte) i);
-			i = buffer().get(bytePos) | (value >> (amount - bitOffset))
-					& BIT_MASK[bitOffset];
-			buffer().put(bytePos++, (byte) i);
-			amount -= bitOffset;
-		}
-		if (amount == bitOffset) {
-			i = buffer().get(bytePos) & ~BIT_MASK[bitOffset];
-			buffer().put(bytePos, (byte) i);
-			i = buffer().get(bytePos) | value & BIT_MASK[bitOffset];
-			buffer().put(bytePos, (byte) i);
-		} else {
-			i = buffer().get(bytePos)
-					& ~(BIT_MASK[amount] << (bitOffset - amount));
-			buffer().put(bytePos, (byte) i);
-			i = buffer().get(bytePos)
-					| (value & BIT_MASK[amount]) << (bitOffset - amount);
-			buffer().put(bytePos, (byte) i);
+		bitRegister = bitRegister << amount | value & BIT_MASK_LONG[amount];
+		bitCount += amount;
+		if (bitCount >= 32) {
+			bitCount -= 32;
+			buffer().putInt((int) (bitRegister >>> bitCount));
 		}
 		return this;
 	}
 
 	/**
-	 * Allocates packet builder with given capacity.
+	 * Allocates packet builder with at least the given capacity, borrowing the
+	 * backing buffer from the {@link BufferPool}.
 	 * 
 	 * @param capacity
 	 *            the packet capacity
@@ -410,18 +405,34 @@ public class PacketBuilder extends Packet {
 	 * @return the newly allocated packet builder
 	 */
 	public static PacketBuilder allocate(int capacity) {
-		return (PacketBuilder) new PacketBuilder().buffer(ByteBuffer
-				.allocateDirect(capacity));
+		return (PacketBuilder) new PacketBuilder().buffer(BufferPool
+				.acquire(capacity));
+	}
+
+	/**
+	 * Hands the backing buffer back to the {@link BufferPool}. Only used for
+	 * builders which are never sent, sent packets are released once written.
+	 */
+	public void release() {
+		BufferPool.release(buffer());
+		buffer(null);
 	}
 
 	public static int BIT_MASK[] = new int[32];
 
+	/**
+	 * The bit masks as longs, up to a whole integer.
+	 */
+	private static final long BIT_MASK_LONG[] = new long[33];
+
 	/**
 	 * Initializes the bit masks.
 	 */
 	static {
 		for (int i = 0; i < 32; i++)
 			BIT_MASK[i] = (1 << i) - 1;
+		for (int i = 0; i <= 32; i++)
+			BIT_MASK_LONG[i] = (1L << i) - 1;
 	}
 
 }
\ No newline at end of file
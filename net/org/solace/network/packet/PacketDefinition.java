@@ -0,0 +1,90 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.network.packet;
+
+/**
+ * Everything the dispatcher knows about one incoming opcode: its handler,
+ * the payload lengths it accepts and how many a session may send per cycle,
+ * the size of the opcode's {@link PacketRateLimiter} bucket.
+ * Statistics are counted in the opcode's own slot of the metrics.
+ *
+ * @author Faris
+ */
+public class PacketDefinition {
+
+	private final int opcode;
+	private final PacketHandler handler;
+	private final int minimumLength, maximumLength;
+	private final int limit;
+
+	/**
+	 * Creates a new packet definition.
+	 *
+	 * @param opcode
+	 *            the opcode
+	 * @param handler
+	 *            the handler, null if the packet is only counted
+	 * @param minimumLength
+	 *            the shortest payload accepted
+	 * @param maximumLength
+	 *            the longest payload accepted
+	 * @param limit
+	 *            the most packets a session may send per cycle, 0 for no limit
+	 */
+	public PacketDefinition(int opcode, PacketHandler handler,
+			int minimumLength, int maximumLength, int limit) {
+		this.opcode = opcode;
+		this.handler = handler;
+		this.minimumLength = minimumLength;
+		this.maximumLength = maximumLength;
+		this.limit = limit;
+	}
+
+	/**
+	 * @return the opcode, also the slot it is counted in
+	 */
+	public int opcode() {
+		return opcode;
+	}
+
+	/**
+	 * @return the handler, null if the packet is only counted
+	 */
+	public PacketHandler handler() {
+		return handler;
+	}
+
+	/**
+	 * Checks if a payload length is one this packet may have. Fixed sized
+	 * packets are framed by their size so always pass.
+	 *
+	 * @param length
+	 *            the payload length
+	 *
+	 * @return true if the length is accepted
+	 */
+	public boolean accepts(int length) {
+		return length >= minimumLength && length <= maximumLength;
+	}
+
+	/**
+	 * @return the most packets a session may send per cycle, 0 for no limit
+	 */
+	public int limit() {
+		return limit;
+	}
+
+}
@@ -53,7 +53,7 @@ public class PacketDispatcher {
         PacketBuilder out = PacketBuilder.allocate(128);
         out.createFrame(164, player.channelContext().encryption());
         out.putLEShort(frame);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -64,7 +64,7 @@ public class PacketDispatcher {
         int x = position.getX() - player.getCachedRegion().regionX() * 8 - 3;
         out.putByteC(y);
         out.putByteC(x);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -85,7 +85,7 @@ public class PacketDispatcher {
         out.putShort(speed);
         out.putByte(16);
         out.putByte(64);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -94,7 +94,7 @@ public class PacketDispatcher {
         out.createFrame(200, player.channelContext().encryption());
         out.putShort(animId);
         out.putShort(interfaceId);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -108,7 +108,7 @@ public class PacketDispatcher {
         PacketBuilder out = PacketBuilder.allocate(5);
         out.createFrame(208, player.channelContext().encryption());
         out.putLEShort(id);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -116,7 +116,7 @@ public class PacketDispatcher {
         PacketBuilder out = PacketBuilder.allocate(5);
         out.createFrame(185, player.channelContext().encryption());
         out.putLEShortA(interfaceId);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -131,7 +131,7 @@ public class PacketDispatcher {
         out.putByteS(((x & 7) << 4) + (y & 7));//tiles away - could just send 0       
         out.putByteS((tileObjectType << 2) + (orientation & 3));
         out.putShortA(animationID);// animation id
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -145,7 +145,7 @@ public class PacketDispatcher {
         out.putShort(id); //id
         out.putByte(height); // height
         out.putShort(time); //time
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -154,7 +154,7 @@ public class PacketDispatcher {
         out.createFrame(75, player.channelContext().encryption());
         out.putLEShortA(npcId);
         out.putLEShortA(interfaceId);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -173,7 +173,7 @@ public class PacketDispatcher {
         }
         out.putLong(name);
         out.putByte(world);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -183,7 +183,7 @@ public class PacketDispatcher {
         out.putLEShort(id);
         out.putShort(zoom);
         out.putShort(model);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -191,7 +191,7 @@ public class PacketDispatcher {
         PacketBuilder out = PacketBuilder.allocate(2);
         out.createFrame(221, player.channelContext().encryption());
         out.putByte(state);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -208,7 +208,7 @@ public class PacketDispatcher {
             out.putShort(l);
             out.putByte((byte) id);
         }
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -221,7 +221,7 @@ public class PacketDispatcher {
         out.putByte(rights);
         out.writeBytes(message, messageSize);
         out.finishSizedFrame();
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -239,7 +239,7 @@ public class PacketDispatcher {
         out.createFrame(249, player.channelContext().encryption());
         out.putByteA(1);
         out.putLEShortA(player.getIndex());
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         for (int i = 0; i < SkillHandler.MAXIMUM_SKILLS; i++) {
             player.getSkills().refreshSkill(i);
         }
@@ -273,7 +273,7 @@ public class PacketDispatcher {
     public PacketDispatcher sendLogout() {
         PacketBuilder out = PacketBuilder.allocate(1);
         out.createFrame(109, player.channelContext().encryption());
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -282,7 +282,7 @@ public class PacketDispatcher {
         out.createFrame(73, player.channelContext().encryption());
         out.putShortA(player.getLocation().regionX() + 6);
         out.putShort(player.getLocation().regionY() + 6);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         player.cacheRegion(player.getLocation().copy());
         return this;
     }
@@ -297,7 +297,7 @@ public class PacketDispatcher {
         out.createSizedFrame(253, player.channelContext().encryption());
         out.putString(message);
         out.finishSizedFrame();
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -324,7 +324,7 @@ public class PacketDispatcher {
         out.putString(string);
         out.putShortA(stringIndex);
         out.finishShortSizedFrame();
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -332,7 +332,7 @@ public class PacketDispatcher {
         PacketBuilder out = PacketBuilder.allocate(1);
         out.createFrame(219, player.channelContext().encryption());
         player.getDialogue().setDialogueId(-1);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -348,7 +348,7 @@ public class PacketDispatcher {
         out.createFrame(248, player.channelContext().encryption());
         out.putShortA(interfaceIndex);
         out.putShort(sidebarInterfaceIndex);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -362,7 +362,7 @@ public class PacketDispatcher {
         PacketBuilder out = PacketBuilder.allocate(5);
         out.createFrame(97, player.channelContext().encryption());
         out.putShort(interfaceIndex);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -378,7 +378,7 @@ public class PacketDispatcher {
         out.putByteC(menuIndex).putByteA(0);
         out.putString(menuName);
         out.finishSizedFrame();
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -393,7 +393,7 @@ public class PacketDispatcher {
         out.createFrame(71, player.channelContext().encryption());
         out.putShort(interfaceId);
         out.putByteA(sidebarId);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -403,7 +403,7 @@ public class PacketDispatcher {
         out.putShort(i);
         out.putLEShort(o);
         out.putLEShort(id);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -412,7 +412,7 @@ public class PacketDispatcher {
         out.createFrame(171, player.channelContext().encryption());
         out.putByte(MainFrame);
         out.putShort(SubFrame);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -427,7 +427,7 @@ public class PacketDispatcher {
         out.createFrame(36, player.channelContext().encryption());
         out.putLEShort(configIndex);
         out.putByte(state);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -436,7 +436,7 @@ public class PacketDispatcher {
         out.createFrame(85, player.channelContext().encryption());
         out.putByteC(location.getY() - 8 * player.getCachedRegion().regionY());
         out.putByteC(location.getX() - 8 * player.getCachedRegion().regionX());
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -447,7 +447,7 @@ public class PacketDispatcher {
         out.putLEShortA(groundItem.item().getIndex());
         out.putShort(groundItem.item().getAmount());
         out.putByte(0);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -457,7 +457,7 @@ public class PacketDispatcher {
         out.createFrame(156, player.channelContext().encryption());
         out.putByteS(0);
         out.putShort(groundItem.item().getIndex());
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -470,7 +470,7 @@ public class PacketDispatcher {
         out.putLEShort(expiredObject ? object.getReplacementId() : object
                 .getObjectId());
         out.putByteS((10 << 2) + (0 & 3));
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -480,7 +480,7 @@ public class PacketDispatcher {
         out.createFrame(101, player.channelContext().encryption());
         out.putByteC((10 << 2) + (0 & 3));
         out.putByte(0);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -490,7 +490,7 @@ public class PacketDispatcher {
         out.putByte(skill);
         out.putInt1((int) player.getSkills().getPlayerExp()[skill]);
         out.putByte(player.getSkills().getPlayerLevel()[skill]);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -504,7 +504,7 @@ public class PacketDispatcher {
         PacketBuilder out = PacketBuilder.allocate(3);
         out.createFrame(74, player.channelContext().encryption());
         out.putLEShort(id);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -514,7 +514,7 @@ public class PacketDispatcher {
         out.putShort(id);
         out.putByte(type);
         out.putShort(delay);
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
@@ -541,7 +541,7 @@ public class PacketDispatcher {
             out.putLEShortA(item.getIndex() + 1);
         }
         out.finishShortSizedFrame();
-        out.sendTo(player.channelContext().channel());
+        out.sendTo(player.channelContext());
         return this;
     }
 
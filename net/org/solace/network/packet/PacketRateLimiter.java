@@ -0,0 +1,75 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.network.packet;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.solace.util.Constants;
+
+/**
+ * One token bucket per opcode for a single session. Each bucket holds the
+ * opcode's {@link PacketDefinition#limit()} tokens and refills at that many
+ * per cycle. A bucket is kept as the single time it is next full, so taking a
+ * token is one comparison and one addition.
+ *
+ * @author Faris
+ */
+public class PacketRateLimiter {
+
+	private static final long CYCLE = TimeUnit.MILLISECONDS
+			.toNanos(Constants.SERVER_CYCLE_RATE);
+
+	/**
+	 * The time each bucket is next full, by opcode.
+	 */
+	private final long[] full = new long[256];
+
+	public PacketRateLimiter() {
+		reset();
+	}
+
+	/**
+	 * Fills every bucket.
+	 */
+	public void reset() {
+		Arrays.fill(full, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Takes a token from an opcode's bucket.
+	 *
+	 * @param opcode
+	 *            the packet opcode
+	 * @param now
+	 *            the current {@link System#nanoTime()}
+	 *
+	 * @return true if there was a token, false if the packet is over the rate
+	 */
+	public boolean take(int opcode, long now) {
+		int limit = PacketType.definition(opcode).limit();
+		if (limit == 0) {
+			return true;
+		}
+		long interval = CYCLE / limit;
+		long full = Math.max(this.full[opcode], now);
+		if (full - now > CYCLE - interval) {
+			return false;
+		}
+		this.full[opcode] = full + interval;
+		return true;
+	}
+
+}
@@ -0,0 +1,270 @@
+/*
+ * This file is part of Solace Framework.
+ * Solace is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Solace is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Solace. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.solace.network.packet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ScatteringByteChannel;
+
+/**
+ * Ring buffer holding the incoming data of one session. The reactor reads
+ * into it and frames whole packets in place, the game cycle then hands them
+ * out through a single reused {@link Packet} viewing the ring, so no packet
+ * is copied or allocated on the way in.
+ * <p>
+ * Positions are counted in bytes since the session started and wrap around
+ * the storage, whose capacity is a power of two. Only one reactor may write
+ * and only the game cycle may poll.
+ *
+ * @author Faris
+ */
+public class PacketRing {
+
+	/**
+	 * The capacity of a new ring, room for a few cycles of a normal client.
+	 */
+	private static final int INITIAL_CAPACITY = 512;
+
+	/**
+	 * The most a ring grows to. A client sending more than this within a
+	 * cycle is flooding and gets disconnected.
+	 */
+	public static final int MAXIMUM_CAPACITY = 1 << 16;
+
+	/**
+	 * The longest frame, a variable sized packet with its opcode and length.
+	 */
+	private static final int LONGEST_FRAME = 2 + 255;
+
+	/**
+	 * The storage, replaced by a larger one when the ring fills up.
+	 */
+	private volatile ByteBuffer storage;
+
+	/**
+	 * The end of the whole packets framed by the reactor.
+	 */
+	private volatile long framed;
+
+	/**
+	 * The start of the first packet the game cycle still uses.
+	 */
+	private volatile long consumed;
+
+	/*
+	 * Owned by the reactor.
+	 */
+	private long written;
+	private final ByteBuffer[] segments = new ByteBuffer[2];
+	private ByteBuffer tail, head;
+
+	/*
+	 * Owned by the game cycle.
+	 */
+	private long next;
+	private final Packet packet = new Packet();
+	private ByteBuffer view;
+	private final ByteBuffer wrapped = ByteBuffer.allocate(LONGEST_FRAME);
+
+	/**
+	 * Reads whatever the channel has into the free part of the ring, growing
+	 * it first if it is full.
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 *
+	 * @return the number of bytes read, or -1 at the end of the stream
+	 *
+	 * @throws IOException
+	 *             if the read failed or the ring cannot grow any further
+	 */
+	public int read(ScatteringByteChannel channel) throws IOException {
+		ByteBuffer storage = this.storage;
+		long consumed = this.consumed;
+		if (storage == null) {
+			storage = allocate(INITIAL_CAPACITY, consumed);
+		} else if (written - consumed == storage.capacity()) {
+			storage = allocate(storage.capacity() << 1, consumed);
+		}
+		int capacity = storage.capacity();
+		int start = (int) written & capacity - 1;
+		int free = capacity - (int) (written - consumed);
+		tail.clear().position(start).limit(Math.min(capacity, start + free));
+		segments[0] = tail;
+		int count = 1;
+		if (start + free > capacity) {
+			head.clear().limit(start + free - capacity);
+			segments[1] = head;
+			count++;
+		}
+		int read = (int) channel.read(segments, 0, count);
+		if (read > 0) {
+			written += read;
+		}
+		return read;
+	}
+
+	/**
+	 * Replaces the storage with one of the given capacity, copying over the
+	 * bytes the game cycle may still read.
+	 */
+	private ByteBuffer allocate(int capacity, long consumed) throws IOException {
+		if (capacity > MAXIMUM_CAPACITY) {
+			throw new IOException("Incoming data overflow");
+		}
+		ByteBuffer old = this.storage;
+		ByteBuffer storage = ByteBuffer.allocateDirect(capacity);
+		if (old != null) {
+			for (long position = consumed; position < written; position++) {
+				storage.put((int) position & capacity - 1, get(old, position));
+			}
+		}
+		tail = storage.duplicate();
+		head = storage.duplicate();
+		this.storage = storage;
+		return storage;
+	}
+
+	/**
+	 * @return the number of bytes read into the ring so far
+	 */
+	public long written() {
+		return written;
+	}
+
+	/**
+	 * Gets a byte the reactor read. Only to be called by the reactor.
+	 *
+	 * @param position
+	 *            the position of the byte
+	 *
+	 * @return the byte
+	 */
+	public int get(long position) {
+		return get(storage, position);
+	}
+
+	/**
+	 * Overwrites a byte the reactor read and has not framed yet.
+	 *
+	 * @param position
+	 *            the position of the byte
+	 *
+	 * @param value
+	 *            the new value
+	 */
+	public void set(long position, int value) {
+		ByteBuffer storage = this.storage;
+		storage.put((int) position & storage.capacity() - 1, (byte) value);
+	}
+
+	/**
+	 * Moves bytes the reactor read and has not framed yet to an earlier
+	 * position, closing the gap left by dropped packets.
+	 *
+	 * @param from
+	 *            the position of the first byte
+	 * @param to
+	 *            the position to move it to
+	 * @param length
+	 *            the number of bytes
+	 */
+	public void move(long from, long to, int length) {
+		ByteBuffer storage = this.storage;
+		for (int i = 0; i < length; i++) {
+			storage.put((int) (to + i) & storage.capacity() - 1,
+					get(storage, from + i));
+		}
+	}
+
+	/**
+	 * Forgets the bytes read past the given position, once they have been
+	 * moved away.
+	 *
+	 * @param position
+	 *            the new end of the data read, no earlier than the framed
+	 *            packets
+	 */
+	public void truncate(long position) {
+		written = position;
+	}
+
+	/**
+	 * Hands every packet before the given position to the game cycle.
+	 *
+	 * @param position
+	 *            the end of the last whole packet
+	 */
+	public void frame(long position) {
+		framed = position;
+	}
+
+	/**
+	 * Gets the next framed packet, releasing the one returned before. The
+	 * packet and its buffer are reused, they are only valid until the next
+	 * call.
+	 *
+	 * @return the next packet, or null if there is none
+	 */
+	public Packet poll() {
+		consumed = next;
+		long end = framed;
+		if (next == end) {
+			return null;
+		}
+		/*
+		 * Read after the framed position, so a storage grown before the
+		 * packet was framed is seen.
+		 */
+		ByteBuffer storage = this.storage;
+		int opcode = get(storage, next) & 0xFF;
+		int header = 1;
+		int length = RSPacketDecoder.PACKET_SIZES[opcode];
+		if (length == -1) {
+			length = get(storage, next + 1) & 0xFF;
+			header++;
+		}
+		int capacity = storage.capacity();
+		int start = (int) (next + header) & capacity - 1;
+		ByteBuffer buffer;
+		if (start + length <= capacity) {
+			if (view == null || view.capacity() != capacity) {
+				view = storage.duplicate();
+			}
+			buffer = view;
+			buffer.clear();
+			buffer.position(start).limit(start + length);
+		} else {
+			/*
+			 * The payload runs over the end of the storage, which happens at
+			 * most once a lap.
+			 */
+			buffer = wrapped;
+			buffer.clear();
+			for (int i = 0; i < length; i++) {
+				buffer.put(get(storage, next + header + i));
+			}
+			buffer.flip();
+		}
+		next += header + length;
+		return packet.buffer(buffer).opcode(opcode).length(length);
+	}
+
+	private static byte get(ByteBuffer storage, long position) {
+		return storage.get((int) position & storage.capacity() - 1);
+	}
+
+}
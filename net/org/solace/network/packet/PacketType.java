@@ -15,9 +15,7 @@
  */
 package org.solace.network.packet;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import org.solace.metrics.Metrics;
 import org.solace.network.RSChannelContext;
 import org.solace.network.packet.impl.ActionButtonPacket;
 import org.solace.network.packet.impl.AppearanceChangePacket;
@@ -45,7 +43,25 @@ import org.solace.network.packet.impl.WalkingUpdatePacket;
  */
 public class PacketType {
 
-    private static Map<Integer, PacketHandler> incomingPacket = new HashMap<Integer, PacketHandler>();
+    /**
+     * The most packets of one opcode a session may send per cycle, enforced
+     * by the decoder's {@link PacketRateLimiter}, unless the opcode is
+     * registered with its own limit.
+     */
+    public static final int DEFAULT_LIMIT = 10;
+
+    /**
+     * Limits of opcodes a client sends at most once or twice per cycle, so
+     * anything beyond is spam: walking, commands, chat and interface state.
+     */
+    private static final int WALKING_LIMIT = 2, COMMAND_LIMIT = 2, CHAT_LIMIT = 2,
+            PRIVATE_MESSAGE_LIMIT = 3, CLICK_LIMIT = 5, APPEARANCE_LIMIT = 1,
+            REGION_CHANGE_LIMIT = 2;
+
+    /**
+     * The dispatch table, one definition per opcode.
+     */
+    private static final PacketDefinition[] definitions = new PacketDefinition[256];
 
     /**
      * Handles an incoming packet.
@@ -56,91 +72,154 @@ public class PacketType {
      */
     public static void handlePacket(RSChannelContext channelContext,
             Packet packet) {
-        PacketHandler packets = incomingPacket.get(packet.opcode());
-        if (packets == null) {
-            // System.out.println("Unhandled Packet Type: " + packet.opcode());
+        int opcode = packet.opcode();
+        if (opcode < 0 || opcode >= definitions.length) {
             return;
         }
-        if (packet.opcode() < 0 || packet.opcode() > 256) {
+        PacketDefinition definition = definitions[opcode];
+        if (!definition.accepts(packet.length())) {
+            Metrics.dropped(opcode);
+            return;
+        }
+        Metrics.handled(opcode);
+        PacketHandler handler = definition.handler();
+        if (handler == null) {
             return;
         }
         try {
-            packets.handlePacket(channelContext.player(), packet);
+            handler.handlePacket(channelContext.player(), packet);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Gets the definition of an opcode.
+     *
+     * @param opcode the opcode
+     *
+     * @return the definition
+     */
+    public static PacketDefinition definition(int opcode) {
+        return definitions[opcode];
+    }
+
+    /**
+     * Registers a handler accepting any legal length, limited to
+     * {@link #DEFAULT_LIMIT} per cycle.
+     */
+    private static void register(int opcode, PacketHandler handler) {
+        register(opcode, handler, 0);
+    }
+
+    /**
+     * Registers a handler, limited to {@link #DEFAULT_LIMIT} per cycle.
+     *
+     * @param minimumLength the shortest payload of a variable sized packet
+     * the handler can read
+     */
+    private static void register(int opcode, PacketHandler handler,
+            int minimumLength) {
+        register(opcode, handler, minimumLength, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Registers a handler.
+     *
+     * @param minimumLength the shortest payload of a variable sized packet
+     * the handler can read
+     *
+     * @param limit the most packets a session may send per cycle
+     */
+    private static void register(int opcode, PacketHandler handler,
+            int minimumLength, int limit) {
+        int size = RSPacketDecoder.PACKET_SIZES[opcode];
+        definitions[opcode] = new PacketDefinition(opcode, handler,
+                size == -1 ? minimumLength : size, size == -1 ? 255 : size,
+                limit);
+    }
+
     /**
      * Static constructor for packet handlers initializing.
      */
     static {
+        for (int opcode = 0; opcode < definitions.length; opcode++) {
+            register(opcode, null);
+        }
 
         ObjectInteractionPacket objectInteraction = new ObjectInteractionPacket();
-        incomingPacket.put(ObjectInteractionPacket.FIRST_CLICK_OBJECT_OPCODE, objectInteraction);
-        incomingPacket.put(ObjectInteractionPacket.SECOND_CLICK_OBJECT_OPCODE, objectInteraction);
-        incomingPacket.put(ObjectInteractionPacket.THIRD_CLICK_OBJECT_OPCODE, objectInteraction);
+        register(ObjectInteractionPacket.FIRST_CLICK_OBJECT_OPCODE, objectInteraction);
+        register(ObjectInteractionPacket.SECOND_CLICK_OBJECT_OPCODE, objectInteraction);
+        register(ObjectInteractionPacket.THIRD_CLICK_OBJECT_OPCODE, objectInteraction);
 
-        incomingPacket.put(236, new PickupGroundItemPacket());
+        register(236, new PickupGroundItemPacket());
 
-        incomingPacket.put(DialoguePacket.DIALOGUE_OPCODE, new DialoguePacket());
+        register(DialoguePacket.DIALOGUE_OPCODE, new DialoguePacket());
 
         PrivateMessagingPacket privateMessage = new PrivateMessagingPacket();
-        incomingPacket.put(PrivateMessagingPacket.ADD_FRIEND_OPCODE, privateMessage);
-        incomingPacket.put(PrivateMessagingPacket.ADD_IGNORE_OPCODE, privateMessage);
-        incomingPacket.put(PrivateMessagingPacket.REMOVE_FRIEND_OPCODE, privateMessage);
-        incomingPacket.put(PrivateMessagingPacket.REMOVE_IGNORE_OPCODE, privateMessage);
-        incomingPacket.put(PrivateMessagingPacket.SEND_PM_OPCODE, privateMessage);
+        register(PrivateMessagingPacket.ADD_FRIEND_OPCODE, privateMessage, 0,
+                PRIVATE_MESSAGE_LIMIT);
+        register(PrivateMessagingPacket.ADD_IGNORE_OPCODE, privateMessage, 0,
+                PRIVATE_MESSAGE_LIMIT);
+        register(PrivateMessagingPacket.REMOVE_FRIEND_OPCODE, privateMessage, 0,
+                PRIVATE_MESSAGE_LIMIT);
+        register(PrivateMessagingPacket.REMOVE_IGNORE_OPCODE, privateMessage, 0,
+                PRIVATE_MESSAGE_LIMIT);
+        register(PrivateMessagingPacket.SEND_PM_OPCODE, privateMessage, 8,
+                PRIVATE_MESSAGE_LIMIT);
 
-        incomingPacket.put(41, new EquipPacketHandler());
+        register(41, new EquipPacketHandler());
 
-        incomingPacket.put(DropItemPacket.DROP_ITEM_OPCODE, new DropItemPacket());
+        register(DropItemPacket.DROP_ITEM_OPCODE, new DropItemPacket());
 
         ItemActionPacket itemActions = new ItemActionPacket();
 
-        incomingPacket.put(ItemActionPacket.FIRST_ITEM_ACTION_OPCODE, itemActions);
-        incomingPacket.put(ItemActionPacket.SECOND_ITEM_ACTION_OPCODE, itemActions);
-        incomingPacket.put(ItemActionPacket.THIRD_ITEM_ACTION_OPCODE, itemActions);
-        incomingPacket.put(ItemActionPacket.FOURTH_ITEM_ACTION_OPCODE, itemActions);
+        register(ItemActionPacket.FIRST_ITEM_ACTION_OPCODE, itemActions);
+        register(ItemActionPacket.SECOND_ITEM_ACTION_OPCODE, itemActions);
+        register(ItemActionPacket.THIRD_ITEM_ACTION_OPCODE, itemActions);
+        register(ItemActionPacket.FOURTH_ITEM_ACTION_OPCODE, itemActions);
 
         NPCInteractionPacket npcInteraction = new NPCInteractionPacket();
-        incomingPacket.put(NPCInteractionPacket.FIRST_CLICK, npcInteraction);
-        incomingPacket.put(NPCInteractionPacket.SECOND_CLICK, npcInteraction);
-        incomingPacket.put(NPCInteractionPacket.THIRD_CLICK, npcInteraction);
-        incomingPacket.put(NPCInteractionPacket.FOURTH_CLICK, npcInteraction);
-        incomingPacket.put(NPCInteractionPacket.ATTACK, npcInteraction);
-        incomingPacket.put(NPCInteractionPacket.MAGIC_ON_NPC, npcInteraction);
-        incomingPacket.put(NPCInteractionPacket.ITEM_ON_NPC, npcInteraction);
+        register(NPCInteractionPacket.FIRST_CLICK, npcInteraction);
+        register(NPCInteractionPacket.SECOND_CLICK, npcInteraction);
+        register(NPCInteractionPacket.THIRD_CLICK, npcInteraction);
+        register(NPCInteractionPacket.FOURTH_CLICK, npcInteraction);
+        register(NPCInteractionPacket.ATTACK, npcInteraction);
+        register(NPCInteractionPacket.MAGIC_ON_NPC, npcInteraction);
+        register(NPCInteractionPacket.ITEM_ON_NPC, npcInteraction);
 
         ObjectInteractionPacket objectPacket = new ObjectInteractionPacket();
-        incomingPacket.put(132, objectPacket);
-        incomingPacket.put(252, objectPacket);
-        incomingPacket.put(70, objectPacket);
+        register(132, objectPacket);
+        register(252, objectPacket);
+        register(70, objectPacket);
 
-        incomingPacket.put(241, new ClickingIngamePacket());
+        register(241, new ClickingIngamePacket(), 0, CLICK_LIMIT);
 
         PlayerInteractionPacket playerInteraction = new PlayerInteractionPacket();
-        incomingPacket.put(PlayerInteractionPacket.ATTACK, playerInteraction);
-        incomingPacket.put(PlayerInteractionPacket.FOLLOW, playerInteraction);
-        incomingPacket.put(PlayerInteractionPacket.MAGIC_ON_PLAYER, playerInteraction);
+        register(PlayerInteractionPacket.ATTACK, playerInteraction);
+        register(PlayerInteractionPacket.FOLLOW, playerInteraction);
+        register(PlayerInteractionPacket.MAGIC_ON_PLAYER, playerInteraction);
 
-        incomingPacket.put(185, new ActionButtonPacket());
+        register(185, new ActionButtonPacket());
 
-        incomingPacket.put(103, new CommandPacket());
+        register(103, new CommandPacket(), 1, COMMAND_LIMIT);
 
-        incomingPacket.put(101, new AppearanceChangePacket());
+        register(101, new AppearanceChangePacket(), 0, APPEARANCE_LIMIT);
 
-        incomingPacket.put(4, new IncomingChatPacket());
+        register(4, new IncomingChatPacket(), 2, CHAT_LIMIT);
 
-        incomingPacket.put(121, new RegionChangePacket());
+        register(121, new RegionChangePacket(), 0, REGION_CHANGE_LIMIT);
 
         WalkingUpdatePacket walking = new WalkingUpdatePacket();
-        incomingPacket.put(WalkingUpdatePacket.COMMAND_MOVEMENT_OPCODE, walking);
-        incomingPacket.put(WalkingUpdatePacket.GAME_MOVEMENT_OPCODE, walking);
-        incomingPacket.put(WalkingUpdatePacket.MINIMAP_MOVEMENT_OPCODE, walking);
+        register(WalkingUpdatePacket.COMMAND_MOVEMENT_OPCODE, walking, 5,
+                WALKING_LIMIT);
+        register(WalkingUpdatePacket.GAME_MOVEMENT_OPCODE, walking, 5,
+                WALKING_LIMIT);
+        register(WalkingUpdatePacket.MINIMAP_MOVEMENT_OPCODE, walking, 19,
+                WALKING_LIMIT);
 
         UseItemPacketHandler useItem = new UseItemPacketHandler();
 
-        incomingPacket.put(UseItemPacketHandler.USE_ITEM, useItem);
+        register(UseItemPacketHandler.USE_ITEM, useItem);
     }
 }
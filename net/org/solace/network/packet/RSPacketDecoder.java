@@ -15,78 +15,129 @@
  */
 package org.solace.network.packet;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import org.solace.metrics.Metrics;
+import org.solace.metrics.Metrics.Counter;
 import org.solace.network.NIODecoder;
 import org.solace.network.RSChannelContext;
 
 
 /**
- * RuneScape protocol packets decoder.
+ * RuneScape protocol packets decoder. Reads into the session's
+ * {@link PacketRing} and frames the packets where they lie, deciphering each
+ * opcode in place. Packets sent faster than their opcode allows are dealt
+ * with by the {@link FloodPolicy}.
  * @author KleptO
  */
 public class RSPacketDecoder implements NIODecoder {
 
-	private int opcode = -1, length = -1;
-	private ByteBuffer buffer = ByteBuffer.allocateDirect(126);
+	/**
+	 * The deciphered opcode of the packet being framed, deciphered only once
+	 * however many reads the packet spans.
+	 */
+	private int opcode = -1;
+
+	/**
+	 * The start of the packet being framed.
+	 */
+	private long position;
+
+	/**
+	 * The end of the packets kept. Behind the packet being framed only once
+	 * some were dropped, the packets after the gap are then moved up to it.
+	 */
+	private long framed;
+
+	private final PacketRateLimiter limiter = new PacketRateLimiter();
+
+	/**
+	 * @return the token buckets of this session
+	 */
+	public PacketRateLimiter limiter() {
+		return limiter;
+	}
 
 	@Override
 	public void decode(RSChannelContext channelContext) throws IOException {
-		/*
-		 * Read the incoming data to our local buffer.
-		 */
-		channelContext.channel().read(buffer);
-		buffer.flip();
+		PacketRing ring = channelContext.inbound();
 
 		/*
-		 * If buffer has no readable data, we skip packet decoding.
+		 * While deferring, the data is left in the socket so the client backs
+		 * off, only what was already read is framed again.
 		 */
-		if (!buffer.hasRemaining()) {
-			buffer.clear();
-			return;
+		if (!channelContext.isReadPaused()) {
+			int read = ring.read(channelContext.channel());
+			if (read == -1) {
+				throw new EOFException();
+			}
+			if (read > 0) {
+				channelContext.received(System.nanoTime());
+			}
+			Metrics.add(Counter.BYTES_IN, read);
 		}
+		long written = ring.written();
+		long now = System.nanoTime();
+		boolean deferred = false;
 
-		while (buffer.hasRemaining()) {
+		while (position < written) {
 			if (opcode == -1) {
-				opcode = buffer.get() & 0xFF;
-				opcode = opcode - channelContext.decryption().getNextKey()
-						& 0xff;
-				length = PACKET_SIZES[opcode];
+				opcode = ring.get(position)
+						- channelContext.decryption().getNextKey() & 0xff;
+				ring.set(position, opcode);
 			}
+			int header = 1;
+			int length = PACKET_SIZES[opcode];
 
 			/*
 			 * Length -1 indicates that this packet is variable sized. There for
 			 * we need to read next byte to figure out packet's length.
 			 */
 			if (length == -1) {
-				if (!buffer.hasRemaining()) {
-					buffer.clear();
-					return;
+				if (written - position < 2) {
+					break;
 				}
-				length = buffer.get() & 0xFF;
+				length = ring.get(position + 1) & 0xFF;
+				header++;
 			}
 
-			if (buffer.remaining() < length) {
-				buffer.compact();
-				return;
+			if (written - position < header + length) {
+				break;
 			}
 
-			Packet packet = Packet.buildPacket(buffer, opcode, length);
-			PacketType.handlePacket(channelContext, packet);
+			if (!limiter.take(opcode, now)) {
+				if (FloodPolicy.CONFIGURED == FloodPolicy.DEFER) {
+					deferred = true;
+					break;
+				}
+				Metrics.dropped(opcode);
+				if (FloodPolicy.CONFIGURED == FloodPolicy.DISCONNECT) {
+					throw new IOException("Packet flood of opcode " + opcode);
+				}
+				position += header + length;
+				opcode = -1;
+				continue;
+			}
 
-			/*
-			 * After handling the packet we reset the variables in order to
-			 * continue decoding other packets.
-			 */
-			opcode = length = -1;
-			buffer.compact().flip();
+			if (framed != position) {
+				ring.move(position, framed, header + length);
+			}
+			position += header + length;
+			framed += header + length;
+			Metrics.increment(Counter.PACKETS_IN);
+			opcode = -1;
 		}
 
 		/*
-		 * After all packets are handled we need to clear the buffer to be ready
-		 * to accept new incoming data.
+		 * Closes the gap of dropped packets before reading any further.
 		 */
-		buffer.clear();
+		if (framed != position) {
+			ring.move(position, framed, (int) (written - position));
+			ring.truncate(framed + written - position);
+			position = framed;
+		}
+		ring.frame(framed);
+		channelContext.pauseReading(deferred);
 	}
 
 	/**
@@ -18,7 +18,6 @@ package org.solace.network.packet.impl;
 import org.solace.game.content.combat.Combat;
 import org.solace.game.entity.mobile.MobilityManager;
 import org.solace.game.entity.mobile.player.Player;
-import org.solace.game.map.Location;
 import org.solace.network.packet.Packet;
 import org.solace.network.packet.PacketHandler;
 
@@ -54,11 +53,11 @@ public class WalkingUpdatePacket implements PacketHandler {
                 path[i][1] = packet.getByte();
             }
             int firstStepY = packet.getLEShort();
-            queue.queueDestination(new Location(firstStepX, firstStepY));
+            queue.queueDestination(firstStepX, firstStepY);
             for (int i = 0; i < steps; i++) {
                 path[i][0] += firstStepX;
                 path[i][1] += firstStepY;
-                queue.queueDestination(new Location(path[i][0], path[i][1]));
+                queue.queueDestination(path[i][0], path[i][1]);
             }
             queue.finish();
         } else {